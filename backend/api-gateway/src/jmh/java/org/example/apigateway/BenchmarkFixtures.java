@@ -0,0 +1,88 @@
+package org.example.apigateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.apigateway.config.DownstreamClients;
+import org.example.apigateway.config.DownstreamProperties;
+import org.example.apigateway.routing.RouteProperties;
+import org.example.apigateway.routing.RouteRegistry;
+import org.example.apigateway.users.Role;
+import org.example.apigateway.users.User;
+import org.example.apigateway.validation.TokenRevocations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Collaborators shared by the benchmarks: a route table shaped like the production one
+ * (with backends that are never called) and synthetic users and tokens.
+ */
+public final class BenchmarkFixtures {
+    public static final String INTERNAL_SECRET = "benchmark-secret";
+
+    private BenchmarkFixtures() {
+    }
+
+    public static DownstreamClients downstreamClients(MeterRegistry registry) {
+        DownstreamProperties properties = new DownstreamProperties();
+
+        for (String service : List.of("auth", "user", "account", "transactions")) {
+            DownstreamProperties.Service config = new DownstreamProperties.Service();
+            config.setUrl("http://localhost:1");
+            properties.getServices().put(service, config);
+        }
+
+        return new DownstreamClients(properties, registry);
+    }
+
+    public static RouteRegistry routeRegistry(DownstreamClients downstreamClients) {
+        RouteProperties properties = new RouteProperties();
+        properties.getRoutes().add(route("auth", "/api/v1/auth", "auth", false));
+        properties.getRoutes().add(route("users", "/api/v1/users", "user", true));
+        properties.getRoutes().add(route("accounts", "/api/v1/accounts", "account", true));
+        properties.getRoutes().add(route("transactions", "/api/v1/transactions", "transactions", true));
+
+        return new RouteRegistry(properties, downstreamClients);
+    }
+
+    /**
+     * Revocation checks switched off, so no Redis is needed. The filter lookup itself is
+     * measured by {@code BloomFilterBenchmark}.
+     */
+    public static TokenRevocations revocationsDisabled(MeterRegistry registry) {
+        return new TokenRevocations(null, registry, false, Duration.ofHours(1), 100_000, 0.001);
+    }
+
+    public static User user(int i) {
+        return new User("user" + i + "@example.org", "User " + i, new UUID(0, i), List.of(Role.USER));
+    }
+
+    /**
+     * Unsigned token with a distinct subject and an expiry far enough out for the token
+     * cache to keep it for the whole run.
+     */
+    public static String token(int i) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(("{\"sub\":\"user" + i + "@example.org\",\"exp\":"
+                + (System.currentTimeMillis() / 1000 + 86_400) + "}").getBytes(StandardCharsets.UTF_8));
+
+        return header + "." + payload + ".signature";
+    }
+
+    public static String clientIp(int i) {
+        return "10." + ((i >> 16) & 0xff) + "." + ((i >> 8) & 0xff) + "." + (i & 0xff);
+    }
+
+    private static RouteProperties.Definition route(String id, String prefix, String service, boolean authRequired) {
+        RouteProperties.Definition definition = new RouteProperties.Definition();
+        definition.setId(id);
+        definition.setPrefix(prefix);
+        definition.setService(service);
+        definition.setAuthRequired(authRequired);
+
+        return definition;
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.apigateway.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identity header propagation: building the per-request {@link OutboundHeaders},
+ * applying them to a downstream request, and the full
+ * {@link DownstreamHeadersInterceptor} pass used for auth-service calls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class OutboundHeadersBenchmark {
+    private static final URI AUTH_URI = URI.create("http://localhost:1/api/v1/auth/refresh");
+    private static final ClientHttpRequestExecution NO_OP_EXECUTION = (request, body) -> null;
+
+    private final DownstreamHeadersInterceptor interceptor = new DownstreamHeadersInterceptor();
+    private MockHttpServletRequest servletRequest;
+    private OutboundHeaders outbound;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        servletRequest = new MockHttpServletRequest("POST", "/api/v1/auth/refresh");
+        servletRequest.addHeader(HttpHeaders.COOKIE, "access_token=a.b.c; refresh_token=d.e.f");
+        servletRequest.setContentType("application/json");
+        outbound = OutboundHeaders.authenticated("benchmark-secret", "00000000-0000-0000-0000-00000000002a", "USER");
+        outbound.attachTo(servletRequest);
+        // The interceptor finds the servlet request through the calling thread
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public OutboundHeaders build() {
+        return OutboundHeaders.authenticated("benchmark-secret", "00000000-0000-0000-0000-00000000002a", "USER");
+    }
+
+    @Benchmark
+    public HttpHeaders apply() {
+        HttpHeaders headers = new HttpHeaders();
+        OutboundHeaders.of(servletRequest).applyTo(headers);
+
+        return headers;
+    }
+
+    @Benchmark
+    public HttpHeaders intercept() throws Exception {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, AUTH_URI);
+        interceptor.intercept(request, new byte[0], NO_OP_EXECUTION);
+
+        return request.getHeaders();
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.apigateway.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.example.apigateway.BenchmarkFixtures;
+import org.example.apigateway.metrics.GatewayMetrics;
+import org.example.apigateway.validation.ValidatedTokenCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Anonymous requests through {@link RateLimitFilter} from a pool of simulated client
+ * IPs, with Redis disabled so only the in-process path is measured. Limits are high
+ * enough that nothing is rejected. With more clients than
+ * {@code gateway.rate-limit.max-tracked-keys} (100k) the excess goes through the shared
+ * overflow bucket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimitFilterBenchmark {
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    @Param({"1", "1000", "100000", "1000000"})
+    public int clients;
+
+    private RateLimitFilter filter;
+    private String[] clientIps;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRedisEnabled(false);
+        properties.getTiers().put(RateLimitProperties.ANONYMOUS_TIER,
+                new RateLimitProperties.Limit(1_000_000_000L, Duration.ofSeconds(1)));
+
+        DownstreamClients downstreamClients = BenchmarkFixtures.downstreamClients(registry);
+        filter = new RateLimitFilter(
+                properties,
+                new RedisTokenBucket(null),
+                BenchmarkFixtures.routeRegistry(downstreamClients),
+                new ValidatedTokenCache(registry, BenchmarkFixtures.revocationsDisabled(registry), 1000),
+                new GatewayMetrics(registry),
+                registry
+        );
+
+        clientIps = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIps[i] = BenchmarkFixtures.clientIp(i);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/accounts/42");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public int anonymousRequest(Client client) throws Exception {
+        client.request.setRemoteAddr(clientIps[ThreadLocalRandom.current().nextInt(clients)]);
+        filter.doFilter(client.request, client.response, NO_OP_CHAIN);
+
+        return client.response.getStatus();
+    }
+}
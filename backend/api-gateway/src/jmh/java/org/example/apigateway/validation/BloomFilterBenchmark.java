@@ -0,0 +1,63 @@
+package org.example.apigateway.validation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The local half of a revocation check: two {@link BloomFilter} lookups (jti and user)
+ * for a token that was never revoked, against a filter holding {@code revoked} entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class BloomFilterBenchmark {
+    @Param({"1000", "100000"})
+    public int revoked;
+
+    private BloomFilter filter;
+    private String[] tokenEntries;
+    private String[] userEntries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filter = new BloomFilter(100_000, 0.001);
+
+        for (int i = 0; i < revoked; i++) {
+            filter.add("jti:" + UUID.randomUUID());
+        }
+
+        tokenEntries = new String[1024];
+        userEntries = new String[1024];
+
+        for (int i = 0; i < tokenEntries.length; i++) {
+            tokenEntries[i] = "jti:" + UUID.randomUUID();
+            userEntries[i] = "user:" + new UUID(0, i);
+        }
+    }
+
+    @Benchmark
+    public boolean notRevoked() {
+        int i = ThreadLocalRandom.current().nextInt(tokenEntries.length);
+
+        return filter.mightContain(tokenEntries[i]) || filter.mightContain(userEntries[i]);
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.apigateway.validation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.example.apigateway.BenchmarkFixtures;
+import org.example.apigateway.config.DownstreamClients;
+import org.example.apigateway.metrics.GatewayMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtAuthFilter} on a cookie-authenticated request with the token already in
+ * the validated-token cache, which is the steady state for an active session, and on a
+ * request without a token. {@link AuthService} is stubbed, so neither auth-service nor
+ * signature checks are part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class JwtAuthFilterBenchmark {
+    // Clears the authentication the filter set, as the end of a real request would
+    private static final FilterChain CHAIN = (request, response) -> SecurityContextHolder.clearContext();
+
+    @Param({"1", "1000", "10000"})
+    public int users;
+
+    private JwtAuthFilter filter;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = new ObjectMapper();
+        DownstreamClients downstreamClients = BenchmarkFixtures.downstreamClients(registry);
+        Map<String, VerifiedToken> verifiedByToken = new HashMap<>();
+        long expiresAtMillis = System.currentTimeMillis() + 86_400_000L;
+
+        tokens = new String[users];
+        for (int i = 0; i < users; i++) {
+            tokens[i] = BenchmarkFixtures.token(i);
+            verifiedByToken.put(tokens[i], new VerifiedToken(BenchmarkFixtures.user(i), expiresAtMillis, "jti-" + i, 0));
+        }
+
+        AuthService authService = new AuthService(null, BenchmarkFixtures.INTERNAL_SECRET, "http://localhost:1", true, null) {
+            @Override
+            public VerifiedToken authenticate(String token) {
+                return verifiedByToken.get(token);
+            }
+        };
+
+        filter = new JwtAuthFilter(
+                downstreamClients,
+                BenchmarkFixtures.routeRegistry(downstreamClients),
+                null,
+                null,
+                new GatewayMetrics(registry),
+                objectMapper,
+                authService,
+                new ValidatedTokenCache(registry, BenchmarkFixtures.revocationsDisabled(registry), users * 2L),
+                null,
+                BenchmarkFixtures.INTERNAL_SECRET
+        );
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        MockHttpServletRequest[] authenticated;
+        final MockHttpServletRequest anonymous = new MockHttpServletRequest("GET", "/api/v1/users/42");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Requests are built up front so the mock's own allocations stay out of the measurement
+        @Setup(Level.Trial)
+        public void setUp(JwtAuthFilterBenchmark benchmark) {
+            authenticated = new MockHttpServletRequest[benchmark.users];
+
+            for (int i = 0; i < benchmark.users; i++) {
+                authenticated[i] = new MockHttpServletRequest("GET", "/api/v1/users/42");
+                authenticated[i].setCookies(new Cookie("access_token", benchmark.tokens[i]));
+            }
+        }
+    }
+
+    @Benchmark
+    public int authenticatedRequest(Client client) throws Exception {
+        MockHttpServletRequest request = client.authenticated[ThreadLocalRandom.current().nextInt(users)];
+        filter.doFilter(request, client.response, CHAIN);
+
+        return client.response.getStatus();
+    }
+
+    @Benchmark
+    public int anonymousRequest(Client client) throws Exception {
+        filter.doFilter(client.anonymous, client.response, CHAIN);
+
+        return client.response.getStatus();
+    }
+}
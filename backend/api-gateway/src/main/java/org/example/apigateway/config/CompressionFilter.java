@@ -0,0 +1,345 @@
+package org.example.apigateway.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.NonNull;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip for responses leaving the gateway. The decision is deferred until the body
+ * reaches {@code min-response-size} (or its Content-Length is known), so small and
+ * streamed responses are handled alike without buffering more than the threshold.
+ * Bodies that already carry a Content-Encoding, such as gzip passed through from a
+ * backend, are left untouched. The gzip level comes from the response media type;
+ * types without a level are never compressed. Responses of a type with a level carry
+ * {@code Vary: Accept-Encoding} whether or not this one was compressed, so shared caches
+ * keep the encodings apart. A strong ETag on a compressed response is made weak, since
+ * it was computed for the uncompressed bytes.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@EnableConfigurationProperties(CompressionProperties.class)
+public class CompressionFilter extends OncePerRequestFilter {
+    private final CompressionProperties properties;
+
+    public CompressionFilter(CompressionProperties properties) {
+        this.properties = properties;
+    }
+
+    public static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (!properties.isEnabled() || "HEAD".equals(request.getMethod())) {
+            filterChain.doFilter(request, response);
+
+            return;
+        }
+
+        // Clients without gzip still go through the wrapper, which adds Vary
+        GzipResponseWrapper wrapper = new GzipResponseWrapper(response, acceptsGzip(request));
+
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            wrapper.finish();
+        }
+    }
+
+    private Integer levelFor(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            Integer level = properties.getLevels().get(mediaType.getType() + "/" + mediaType.getSubtype());
+
+            if (level == null && "json".equals(mediaType.getSubtypeSuffix())) {
+                level = properties.getLevels().get(MediaType.APPLICATION_JSON_VALUE);
+            }
+
+            return level;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private class GzipResponseWrapper extends HttpServletResponseWrapper {
+        private final boolean clientAcceptsGzip;
+        private long contentLength = -1;
+        private DeferredOutputStream stream;
+        private PrintWriter writer;
+
+        GzipResponseWrapper(HttpServletResponse response, boolean clientAcceptsGzip) {
+            super(response);
+            this.clientAcceptsGzip = clientAcceptsGzip;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (stream != null && stream.decided()) {
+                if (!stream.compressing()) {
+                    super.setContentLengthLong(len);
+                }
+
+                return;
+            }
+
+            contentLength = len;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (stream == null) {
+                stream = new DeferredOutputStream(this);
+            }
+
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.flush();
+            }
+
+            super.flushBuffer();
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+
+            if (stream != null) {
+                stream.finish();
+            } else if (contentLength >= 0 && !isCommitted()) {
+                super.setContentLengthLong(contentLength);
+            }
+        }
+
+        void applyContentLength() {
+            if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+        }
+
+        ServletOutputStream rawOutputStream() throws IOException {
+            return super.getOutputStream();
+        }
+    }
+
+    private class DeferredOutputStream extends ServletOutputStream {
+        private final GzipResponseWrapper wrapper;
+        private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private OutputStream target;
+        private ServletOutputStream raw;
+        private GZIPOutputStream gzip;
+        private boolean nonBlocking;
+
+        DeferredOutputStream(GzipResponseWrapper wrapper) {
+            this.wrapper = wrapper;
+        }
+
+        boolean decided() {
+            return target != null;
+        }
+
+        boolean compressing() {
+            return gzip != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target != null) {
+                target.write(b, off, len);
+
+                return;
+            }
+
+            pending.write(b, off, len);
+
+            if (wrapper.contentLength >= 0 || pending.size() >= properties.getMinResponseSize().toBytes()) {
+                decide();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target == null) {
+                decide();
+            }
+
+            target.flush();
+        }
+
+        void finish() throws IOException {
+            if (target == null) {
+                decide();
+            }
+
+            if (gzip != null) {
+                gzip.finish();
+            }
+            // A non-blocking writer completes the response itself; flushing here could block
+            if (!nonBlocking) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return !nonBlocking || raw.isReady();
+        }
+
+        /**
+         * Non-blocking writers get the container's stream uncompressed: gzip buffers and
+         * writes behind their back, which breaks the isReady() contract they rely on.
+         */
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                if (target == null) {
+                    decide(false);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            if (gzip != null) {
+                throw new IllegalStateException("Cannot switch to non-blocking writes after compression started");
+            }
+
+            nonBlocking = true;
+            raw.setWriteListener(writeListener);
+        }
+
+        private void decide() throws IOException {
+            decide(true);
+        }
+
+        private void decide(boolean allowCompression) throws IOException {
+            long size = wrapper.contentLength >= 0 ? wrapper.contentLength : pending.size();
+            Integer level = levelFor(wrapper.getContentType());
+            int status = wrapper.getStatus();
+            boolean compress = allowCompression
+                    && wrapper.clientAcceptsGzip
+                    && level != null
+                    && size >= properties.getMinResponseSize().toBytes()
+                    && wrapper.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                    && status != HttpServletResponse.SC_NO_CONTENT
+                    && status != HttpServletResponse.SC_NOT_MODIFIED;
+
+            if (level != null) {
+                addVary();
+            }
+
+            if (compress) {
+                String eTag = wrapper.getHeader(HttpHeaders.ETAG);
+
+                if (eTag != null && eTag.startsWith("\"")) {
+                    wrapper.setHeader(HttpHeaders.ETAG, "W/" + eTag);
+                }
+
+                wrapper.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                raw = wrapper.rawOutputStream();
+                gzip = new LeveledGzipOutputStream(raw, level);
+                target = gzip;
+            } else {
+                wrapper.applyContentLength();
+                raw = wrapper.rawOutputStream();
+                target = raw;
+            }
+
+            pending.writeTo(target);
+            pending = null;
+        }
+
+        private void addVary() {
+            for (String vary : wrapper.getHeaders(HttpHeaders.VARY)) {
+                String lower = vary.toLowerCase();
+
+                if (lower.contains("*") || lower.contains("accept-encoding")) {
+                    return;
+                }
+            }
+
+            wrapper.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+    }
+
+    private static class LeveledGzipOutputStream extends GZIPOutputStream {
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            // Sync flush so flushBuffer() still pushes compressed bytes to the client
+            super(out, 8192, true);
+            def.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.apigateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.compression")
+public class CompressionProperties {
+    private boolean enabled = true;
+    // Smaller bodies are sent as-is; gzip overhead outweighs the savings
+    private DataSize minResponseSize = DataSize.ofKilobytes(2);
+    // Media type (without parameters) to gzip level 1-9; unlisted types are not compressed
+    private Map<String, Integer> levels = new HashMap<>(Map.of(
+            "application/json", 6,
+            "text/plain", 4,
+            "application/openmetrics-text", 4
+    ));
+}
@@ -0,0 +1,198 @@
+package org.example.apigateway.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One pooled HTTP client per backend declared under {@code gateway.downstream.services}.
+ * Pools are isolated so connection churn or exhaustion on one backend cannot take
+ * connections away from another.
+ */
+@Component
+public class DownstreamClients implements DisposableBean {
+    private final Logger logger = LoggerFactory.getLogger(DownstreamClients.class);
+    private final Map<String, Downstream> downstreams = new HashMap<>();
+    private final Map<String, RestClient> timeoutClients = new ConcurrentHashMap<>();
+
+    public DownstreamClients(DownstreamProperties properties, MeterRegistry registry) {
+        properties.getServices().forEach((name, service) ->
+                downstreams.put(name, createDownstream(name, service, registry)));
+    }
+
+    public RestClient client(String service) {
+        return get(service).restClient();
+    }
+
+    /**
+     * Client for {@code service} with a route-specific read timeout. It shares the
+     * service's connection pool; only the per-request timeout differs.
+     */
+    public RestClient client(String service, Duration readTimeout) {
+        if (readTimeout == null) {
+            return client(service);
+        }
+
+        return timeoutClients.computeIfAbsent(service + ":" + readTimeout.toMillis(), key -> {
+            HttpComponentsClientHttpRequestFactory requestFactory =
+                    new HttpComponentsClientHttpRequestFactory(get(service).httpClient());
+            requestFactory.setReadTimeout(readTimeout);
+
+            return RestClient.builder().requestFactory(requestFactory).build();
+        });
+    }
+
+    public ClientHttpRequestFactory requestFactory(String service) {
+        return get(service).requestFactory();
+    }
+
+    public String url(String service) {
+        return get(service).url();
+    }
+
+    @Override
+    public void destroy() {
+        downstreams.forEach((name, downstream) -> {
+            try {
+                downstream.httpClient().close();
+            } catch (IOException e) {
+                logger.warn("Failed to close HTTP client for {}: {}", name, e.getMessage());
+            }
+        });
+    }
+
+    private Downstream get(String service) {
+        Downstream downstream = downstreams.get(service);
+
+        if (downstream == null) {
+            throw new IllegalArgumentException("Unknown downstream service: " + service);
+        }
+
+        return downstream;
+    }
+
+    private Downstream createDownstream(String name, DownstreamProperties.Service service, MeterRegistry registry) {
+        Timer poolWait = Timer.builder("gateway.downstream.pool.wait")
+                .description("Time spent waiting to lease a pooled connection")
+                .tag("service", name)
+                .publishPercentileHistogram()
+                .register(registry);
+
+        Timer connect = Timer.builder("gateway.downstream.connect")
+                .description("Time spent opening new connections")
+                .tag("service", name)
+                .publishPercentileHistogram()
+                .register(registry);
+
+        TimedConnectionManager connectionManager = new TimedConnectionManager(poolWait, connect);
+        connectionManager.setMaxTotal(service.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(service.getMaxConnections());
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(service.getConnectTimeout()))
+                .setSocketTimeout(Timeout.of(service.getReadTimeout()))
+                .setTimeToLive(TimeValue.of(service.getConnectionTimeToLive()))
+                .build());
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(registry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(service.getPoolWaitTimeout()))
+                        .setResponseTimeout(Timeout.of(service.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(service.getIdleEviction()))
+                .disableAutomaticRetries()
+                // Compressed bodies are passed through or decoded by GatewayService, not here
+                .disableContentCompression()
+                .build();
+
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+
+        return new Downstream(
+                service.getUrl(),
+                httpClient,
+                requestFactory,
+                RestClient.builder().requestFactory(requestFactory).build()
+        );
+    }
+
+    private record Downstream(String url,
+                              CloseableHttpClient httpClient,
+                              HttpComponentsClientHttpRequestFactory requestFactory,
+                              RestClient restClient) {
+    }
+
+    private static class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+        private final Timer poolWait;
+        private final Timer connect;
+
+        TimedConnectionManager(Timer poolWait, Timer connect) {
+            this.poolWait = poolWait;
+            this.connect = connect;
+        }
+
+        @Override
+        public void connect(ConnectionEndpoint endpoint, TimeValue timeout, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+
+            try {
+                super.connect(endpoint, timeout, context);
+            } finally {
+                connect.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            LeaseRequest delegate = super.lease(id, route, requestTimeout, state);
+
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    long start = System.nanoTime();
+
+                    try {
+                        return delegate.get(timeout);
+                    } finally {
+                        poolWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return delegate.cancel();
+                }
+            };
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package org.example.apigateway.config;
 
-import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.NonNull;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
@@ -11,7 +11,14 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.io.IOException;
-
+import java.util.Enumeration;
+
+/**
+ * Adds the current request's {@link OutboundHeaders} to calls made through the
+ * auth-service client. auth-service reads the token cookies itself (refresh, logout),
+ * so the client's Cookie header is passed through unchanged; other backends never
+ * receive it.
+ */
 public class DownstreamHeadersInterceptor implements ClientHttpRequestInterceptor {
 
     @Override
@@ -22,40 +29,24 @@ public class DownstreamHeadersInterceptor implements ClientHttpRequestIntercepto
 
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
         if (attributes != null) {
-            HttpServletRequest servletRequest = attributes.getRequest();
-            
-            addHeaderIfPresent(request, servletRequest, "X-User-ID");
-            addHeaderIfPresent(request, servletRequest, "X-User-Roles");
-            addHeaderIfPresent(request, servletRequest, "X-User-Email");
-            addHeaderIfPresent(request, servletRequest, "X-Internal-Request");
-            addHeaderIfPresent(request, servletRequest, "Content-Type");
-            
-            addCookiesIfPresent(request, servletRequest);
+            copyHeaders(attributes.getRequest(), request.getHeaders());
         }
 
         return execution.execute(request, body);
     }
 
-    private void addHeaderIfPresent(HttpRequest request, HttpServletRequest servletRequest, String headerName) {
-        Object value = servletRequest.getHeader(headerName);
-        if (value != null) {
-            request.getHeaders().add(headerName, value.toString());
-        }
-    }
+    private static void copyHeaders(HttpServletRequest servletRequest, HttpHeaders headers) {
+        OutboundHeaders.of(servletRequest).applyTo(headers);
 
-    private void addCookiesIfPresent(HttpRequest request, HttpServletRequest servletRequest) {
-        Cookie[] cookies = servletRequest.getCookies();
+        if (!headers.containsKey(HttpHeaders.COOKIE)) {
+            Enumeration<String> cookies = servletRequest.getHeaders(HttpHeaders.COOKIE);
 
-        if (cookies != null && cookies.length > 0) {
-            StringBuilder cookieHeader = new StringBuilder();
-
-            for (int i = 0; i < cookies.length; i++) {
-                if (i > 0) {
-                    cookieHeader.append("; ");
-                }
-                cookieHeader.append(cookies[i].getName()).append("=").append(cookies[i].getValue());
+            while (cookies.hasMoreElements()) {
+                headers.add(HttpHeaders.COOKIE, cookies.nextElement());
             }
-            request.getHeaders().add("Cookie", cookieHeader.toString());
+        }
+        if (!headers.containsKey(HttpHeaders.CONTENT_TYPE) && servletRequest.getContentType() != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, servletRequest.getContentType());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package org.example.apigateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.downstream")
+public class DownstreamProperties {
+    private Map<String, Service> services = new LinkedHashMap<>();
+
+    @Data
+    public static class Service {
+        private String url;
+        private int maxConnections = 50;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(10);
+        // How long a request may wait for a pooled connection before failing
+        private Duration poolWaitTimeout = Duration.ofSeconds(1);
+        private Duration idleEviction = Duration.ofSeconds(30);
+        private Duration connectionTimeToLive = Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.apigateway.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Bounded key table whose idle entries expire through a hashed timing wheel.
+ *
+ * <p>A lookup for an existing key only writes a primitive last-access timestamp; the
+ * table allocates nothing on that path. Each entry sits in the wheel slot for its
+ * deadline. {@link #advance()} processes only the slots that came due since the last
+ * tick. It drops entries that have stayed idle for the whole timeout and re-files the
+ * rest, so expiry work is spread out instead of done in one full scan. The wheel has
+ * to span the idle timeout, otherwise entries come due before their deadline and are
+ * re-filed on every lap. Once {@code maxKeys} entries are tracked, new keys are refused
+ * rather than growing the table.
+ */
+class ExpiringKeyTable<K, V> {
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<ConcurrentLinkedQueue<Entry<K, V>>> wheel;
+    private final AtomicInteger size = new AtomicInteger();
+    private final long idleNanos;
+    private final long tickNanos;
+    private final int maxKeys;
+    private final long originNanos = System.nanoTime();
+    // Only touched by the thread calling advance()
+    private long nextTick;
+
+    ExpiringKeyTable(long idleNanos, long tickNanos, int wheelSize, int maxKeys) {
+        long idleTicks = (idleNanos + tickNanos - 1) / tickNanos;
+
+        if (wheelSize <= idleTicks) {
+            throw new IllegalArgumentException("Wheel of " + wheelSize + " slots does not span the idle timeout of "
+                    + idleTicks + " ticks; raise wheel-size or wheel-tick");
+        }
+
+        this.idleNanos = idleNanos;
+        this.tickNanos = tickNanos;
+        this.maxKeys = maxKeys;
+        this.wheel = new AtomicReferenceArray<>(wheelSize);
+
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.set(i, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Returns the value for {@code key}, creating it on first use, or {@code null} when
+     * the key is new and the table is full.
+     */
+    V get(K key, Function<K, V> factory) {
+        long now = System.nanoTime();
+        Entry<K, V> entry = entries.get(key);
+
+        if (entry == null) {
+            if (size.get() >= maxKeys) {
+                return null;
+            }
+
+            entry = entries.computeIfAbsent(key, k -> {
+                size.incrementAndGet();
+                Entry<K, V> created = new Entry<>(k, factory.apply(k), now);
+                schedule(created);
+
+                return created;
+            });
+        }
+
+        entry.lastAccessNanos = now;
+
+        return entry.value;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    void advance() {
+        long now = System.nanoTime();
+        long currentTick = tickOf(now);
+
+        while (nextTick <= currentTick) {
+            int slot = slotOf(nextTick);
+            ConcurrentLinkedQueue<Entry<K, V>> due = wheel.getAndSet(slot, new ConcurrentLinkedQueue<>());
+            Entry<K, V> entry;
+
+            while ((entry = due.poll()) != null) {
+                if (now - entry.lastAccessNanos >= idleNanos) {
+                    if (entries.remove(entry.key, entry)) {
+                        size.decrementAndGet();
+                    }
+                } else {
+                    schedule(entry);
+                }
+            }
+
+            nextTick++;
+        }
+    }
+
+    private void schedule(Entry<K, V> entry) {
+        long deadlineTick = tickOf(entry.lastAccessNanos + idleNanos);
+
+        wheel.get(slotOf(deadlineTick)).add(entry);
+    }
+
+    private long tickOf(long nanos) {
+        return (nanos - originNanos) / tickNanos;
+    }
+
+    private int slotOf(long tick) {
+        return (int) (tick % wheel.length());
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private volatile long lastAccessNanos;
+
+        private Entry(K key, V value, long lastAccessNanos) {
+            this.key = key;
+            this.value = value;
+            this.lastAccessNanos = lastAccessNanos;
+        }
+    }
+}
@@ -2,8 +2,11 @@ package org.example.apigateway.config;
 
 import org.example.apigateway.config.exceptions.AuthenticationServiceUnavailable;
 import org.example.apigateway.config.exceptions.AuthServiceClientException;
+import org.example.apigateway.config.exceptions.RouteNotFoundException;
+import org.example.apigateway.config.exceptions.ServiceOverloadedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -25,6 +28,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("{\"error\":\"" + e.getMessage() + "\"}");
     }
 
+    @ExceptionHandler(RouteNotFoundException.class)
+    public ResponseEntity<String> handleRouteNotFoundException(RouteNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("{\"error\":\"" + e.getMessage() + "\"}");
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<String> handleServiceOverloadedException(ServiceOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body("{\"error\":\"" + e.getMessage() + "\"}");
+    }
+
     @ExceptionHandler(HttpClientErrorException.class)
     public ResponseEntity<String> handleHttpClientErrorException(HttpClientErrorException e) {
         logger.error("Error from downstream service: {}", e.getMessage());
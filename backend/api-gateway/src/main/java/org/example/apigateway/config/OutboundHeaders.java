@@ -0,0 +1,67 @@
+package org.example.apigateway.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Identity headers the gateway sends downstream for one client request: the internal
+ * secret, plus user id and roles when the request is authenticated. Built once by
+ * {@code JwtAuthFilter} and kept as a request attribute, so proxied calls, retries and
+ * hedged attempts all reuse the same immutable set instead of re-reading the servlet
+ * request. Only headers the backends actually read are included.
+ */
+public final class OutboundHeaders {
+    public static final String ATTRIBUTE = OutboundHeaders.class.getName();
+    public static final String INTERNAL_REQUEST = "X-Internal-Request";
+    public static final String USER_ID = "X-User-ID";
+    public static final String USER_ROLES = "X-User-Roles";
+
+    private static final OutboundHeaders NONE = new OutboundHeaders(Map.of());
+
+    private final Map<String, List<String>> headers;
+
+    private OutboundHeaders(Map<String, List<String>> headers) {
+        this.headers = headers;
+    }
+
+    /**
+     * Headers for requests without an authenticated user. The result does not depend
+     * on the request, so callers can build it once and share it.
+     */
+    public static OutboundHeaders internal(String internalSecret) {
+        return new OutboundHeaders(Map.of(INTERNAL_REQUEST, List.of(internalSecret)));
+    }
+
+    public static OutboundHeaders authenticated(String internalSecret, String userId, String roles) {
+        return new OutboundHeaders(Map.of(
+                INTERNAL_REQUEST, List.of(internalSecret),
+                USER_ID, List.of(userId),
+                USER_ROLES, List.of(roles)
+        ));
+    }
+
+    /**
+     * The set attached to {@code request}, or an empty one when the auth filter did not
+     * run for it (e.g. the request is handled locally).
+     */
+    public static OutboundHeaders of(HttpServletRequest request) {
+        Object headers = request.getAttribute(ATTRIBUTE);
+
+        return headers instanceof OutboundHeaders outbound ? outbound : NONE;
+    }
+
+    public void attachTo(HttpServletRequest request) {
+        request.setAttribute(ATTRIBUTE, this);
+    }
+
+    /**
+     * Sets these headers on {@code target}, replacing any existing values. The value
+     * lists are shared and immutable, so nothing is copied.
+     */
+    public void applyTo(HttpHeaders target) {
+        headers.forEach(target::put);
+    }
+}
@@ -3,8 +3,23 @@ package org.example.apigateway.config;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.Refill;
+import jakarta.servlet.http.Cookie;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.NonNull;
+import org.example.apigateway.metrics.GatewayMetrics;
+import org.example.apigateway.routing.Route;
+import org.example.apigateway.routing.RouteRegistry;
+import org.example.apigateway.users.Role;
+import org.example.apigateway.users.User;
+import org.example.apigateway.validation.ValidatedTokenCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataAccessException;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -12,25 +27,76 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.time.Duration;
-import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Cluster-wide rate limiting backed by Redis, with limits per route and per role tier.
+ * Each instance pre-fetches a small batch of tokens per key so most requests are
+ * answered locally. If Redis is unreachable the filter falls back to per-instance
+ * Bucket4j buckets with the same limits.
+ *
+ * <p>The filter runs before authentication, so the tier comes from the validated-token
+ * cache. A session's first request is limited as anonymous by client IP; after that it
+ * is limited by user id at its role's tier. The client IP is the connection's peer
+ * address; {@code X-Forwarded-For} is only followed through hops listed in
+ * {@code gateway.rate-limit.trusted-proxies}, so clients cannot pick their own key by
+ * sending the header.
+ *
+ * <p>Per-key state lives in an {@link ExpiringKeyTable}: idle keys expire incrementally
+ * and the number of tracked keys has a hard cap.
+ */
 @Component
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class RateLimitFilter extends OncePerRequestFilter {
+    private final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final String OVERFLOW_KEY = "overflow";
+    private static final Map<Role, String> TIERS = tierNames();
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
-    private final Map<String, Instant> lastAccess = new ConcurrentHashMap<>();
+    private final ExpiringKeyTable<ClientKey, Allowance> allowances;
+    private final Allowance overflowAllowance;
+    private final Counter overflowCounter;
+    private final RateLimitProperties properties;
+    private final RedisTokenBucket redisTokenBucket;
+    private final RouteRegistry routeRegistry;
+    private final ValidatedTokenCache tokenCache;
+    private final GatewayMetrics metrics;
+    private final List<IpAddressMatcher> trustedProxies;
+    private volatile long redisRetryAtNanos;
 
-    private Bucket createNewBucket() {
-        Bandwidth limit = Bandwidth.classic(3, Refill.intervally(3, Duration.ofSeconds(10)));
+    public RateLimitFilter(RateLimitProperties properties,
+                           RedisTokenBucket redisTokenBucket,
+                           RouteRegistry routeRegistry,
+                           ValidatedTokenCache tokenCache,
+                           GatewayMetrics metrics,
+                           MeterRegistry registry) {
+        this.properties = properties;
+        this.redisTokenBucket = redisTokenBucket;
+        this.routeRegistry = routeRegistry;
+        this.tokenCache = tokenCache;
+        this.metrics = metrics;
+        // nanoTime() has an arbitrary origin, so "no backoff" is now rather than 0
+        this.redisRetryAtNanos = System.nanoTime();
+        this.trustedProxies = properties.getTrustedProxies().stream()
+                .map(IpAddressMatcher::new)
+                .toList();
+        this.allowances = new ExpiringKeyTable<>(
+                properties.getIdleTimeout().toNanos(),
+                properties.getWheelTick().toNanos(),
+                properties.getWheelSize(),
+                properties.getMaxTrackedKeys()
+        );
+        this.overflowAllowance = new Allowance(OVERFLOW_KEY, properties.limitFor(OVERFLOW_KEY, RateLimitProperties.ANONYMOUS_TIER));
+        this.overflowCounter = Counter.builder("gateway.rate-limit.overflow")
+                .description("Requests limited through the shared overflow bucket because the key table was full")
+                .register(registry);
 
-        return Bucket.builder().addLimit(limit).build();
-    }
-
-    private Bucket getBucket(String key) {
-        lastAccess.put(key, Instant.now());
-        return buckets.computeIfAbsent(key, k -> createNewBucket());
+        Gauge.builder("gateway.rate-limit.tracked.keys", allowances, ExpiringKeyTable::size)
+                .description("Rate-limit keys currently tracked by this instance")
+                .register(registry);
     }
 
     @Override
@@ -39,39 +105,233 @@ public class RateLimitFilter extends OncePerRequestFilter {
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws java.io.IOException, jakarta.servlet.ServletException {
 
-        String clientIp = getClientIP(request);
-        Bucket bucket = getBucket(clientIp);
+        long start = System.nanoTime();
+        String routeId = routeRegistry.match(request.getRequestURI())
+                .map(Route::id)
+                .orElse("default");
+        User user = resolveUser(request);
+        String tier = user == null ? RateLimitProperties.ANONYMOUS_TIER : tierOf(user);
+        ClientKey key = user == null
+                ? new ClientKey(routeId, tier, null, getClientIP(request))
+                : new ClientKey(routeId, tier, user.getId(), null);
+
+        RateLimitProperties.Limit limit = properties.limitFor(routeId, tier);
+        boolean allowed = tryConsume(key, limit);
+        metrics.recordPhase(GatewayMetrics.PHASE_RATE_LIMIT, routeId, System.nanoTime() - start);
 
-        if (bucket.tryConsume(1)) {
+        if (allowed) {
             filterChain.doFilter(request, response);
         } else {
             response.setStatus(429);
+            response.setHeader("Retry-After", Long.toString(Math.max(1, limit.getPeriod().toSeconds() / limit.getCapacity())));
             response.setContentType("application/json");
             response.getWriter().write("{\"error\":\"Rate limit exceeded. Try again later.\"}");
         }
     }
 
+    private boolean tryConsume(ClientKey key, RateLimitProperties.Limit limit) {
+        Allowance allowance = allowances.get(key, k -> new Allowance(k.redisKey(), limit));
+
+        if (allowance == null) {
+            // Table is full (e.g. IP spraying): all untracked keys share one bucket
+            overflowCounter.increment();
+            allowance = overflowAllowance;
+        }
+
+        long now = System.nanoTime();
+
+        if (allowance.tryTakePrefetched(now)) {
+            return true;
+        }
+
+        if (!properties.isRedisEnabled() || now - redisRetryAtNanos < 0) {
+            return allowance.localBucket().tryConsume(1);
+        }
+
+        try {
+            long granted = redisTokenBucket.acquire(allowance.redisKey, allowance.limit, batchSize(allowance.limit));
+
+            if (granted <= 0) {
+                return false;
+            }
+
+            allowance.prefetched(granted - 1, now + properties.getPrefetchTtl().toNanos());
+
+            return true;
+        } catch (DataAccessException e) {
+            logger.warn("Redis rate limiter unavailable, using local buckets: {}", e.getMessage());
+            redisRetryAtNanos = now + properties.getRedisRetryAfter().toNanos();
+
+            return allowance.localBucket().tryConsume(1);
+        }
+    }
+
+    // Small limits go to Redis for every token so they stay exact; larger ones pre-fetch
+    private long batchSize(RateLimitProperties.Limit limit) {
+        return Math.max(1, Math.min(properties.getPrefetch(), limit.getCapacity() / 10));
+    }
+
+    private User resolveUser(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+
+        if (cookies == null) {
+            return null;
+        }
+
+        for (Cookie cookie : cookies) {
+            if (cookie.getName().equals("access_token")) {
+                return tokenCache.peek(cookie.getValue());
+            }
+        }
+
+        return null;
+    }
+
+    private String tierOf(User user) {
+        Role highest = Role.USER;
+
+        for (Role role : user.getRoles()) {
+            if (role.compareTo(highest) > 0) {
+                highest = role;
+            }
+        }
+
+        return TIERS.get(highest);
+    }
+
+    // Walks X-Forwarded-For from the nearest hop back while the hop is a trusted proxy
     private String getClientIP(HttpServletRequest request) {
+        String client = request.getRemoteAddr();
         String xfHeader = request.getHeader("X-Forwarded-For");
-        if (xfHeader == null) {
-            return request.getRemoteAddr();
+
+        if (xfHeader == null || !isTrustedProxy(client)) {
+            return client;
         }
-        return xfHeader.split(",")[0];
+
+        String[] hops = xfHeader.split(",");
+
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+
+            if (hop.isEmpty()) {
+                break;
+            }
+
+            client = hop;
+
+            if (!isTrustedProxy(hop)) {
+                break;
+            }
+        }
+
+        return client;
     }
 
-    @Scheduled(fixedRate = 300000)
-    public void cleanupInactiveIPs() {
-        Instant cutoff = Instant.now().minusSeconds(600);
-        
-        lastAccess.entrySet().removeIf(entry -> {
-            if (entry.getValue().isBefore(cutoff)) {
-                buckets.remove(entry.getKey());
+    private boolean isTrustedProxy(String address) {
+        // Matching a host name would resolve it, so anything but an IP literal is untrusted
+        if (trustedProxies.isEmpty() || !isIpLiteral(address)) {
+            return false;
+        }
 
-                return true;
+        for (IpAddressMatcher proxy : trustedProxies) {
+            try {
+                if (proxy.matches(address)) {
+                    return true;
+                }
+            } catch (IllegalArgumentException e) {
+                return false;
             }
+        }
 
+        return false;
+    }
+
+    private static boolean isIpLiteral(String address) {
+        if (address.isEmpty()) {
             return false;
-        });
+        }
+
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+
+            if (Character.digit(c, 16) < 0 && c != '.' && c != ':') {
+                return false;
+            }
+        }
+
+        return true;
     }
-}
 
+    private static Map<Role, String> tierNames() {
+        Map<Role, String> tiers = new EnumMap<>(Role.class);
+
+        for (Role role : Role.values()) {
+            tiers.put(role, role.name().toLowerCase().replace('_', '-'));
+        }
+
+        return tiers;
+    }
+
+    @Scheduled(fixedRateString = "${gateway.rate-limit.wheel-tick:1s}")
+    public void expireIdleKeys() {
+        allowances.advance();
+    }
+
+    /**
+     * Table key for one client on one route and tier. Holds the parts instead of joining
+     * them, so a request for a tracked key builds no string; the Redis key is derived once
+     * when the key is first tracked.
+     */
+    private record ClientKey(String routeId, String tier, UUID userId, String ip) {
+        String redisKey() {
+            return routeId + ":" + tier + ":" + (userId != null ? "user:" + userId : "ip:" + ip);
+        }
+    }
+
+    private static class Allowance {
+        private final String redisKey;
+        private final RateLimitProperties.Limit limit;
+        private final AtomicLong tokens = new AtomicLong();
+        private volatile long expiresAtNanos;
+        private volatile Bucket localBucket;
+
+        Allowance(String redisKey, RateLimitProperties.Limit limit) {
+            this.redisKey = redisKey;
+            this.limit = limit;
+        }
+
+        boolean tryTakePrefetched(long now) {
+            if (now - expiresAtNanos > 0) {
+                return false;
+            }
+
+            long available;
+            do {
+                available = tokens.get();
+                if (available <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(available, available - 1));
+
+            return true;
+        }
+
+        void prefetched(long count, long expiresAt) {
+            tokens.set(count);
+            expiresAtNanos = expiresAt;
+        }
+
+        Bucket localBucket() {
+            Bucket bucket = localBucket;
+
+            if (bucket == null) {
+                Duration period = limit.getPeriod();
+                Bandwidth bandwidth = Bandwidth.classic(limit.getCapacity(), Refill.intervally(limit.getCapacity(), period));
+                bucket = Bucket.builder().addLimit(bandwidth).build();
+                localBucket = bucket;
+            }
+
+            return bucket;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.apigateway.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+    public static final String ANONYMOUS_TIER = "anonymous";
+
+    private boolean redisEnabled = true;
+    // Upper bound on tokens pulled from Redis in one round trip
+    private int prefetch = 10;
+    // How long pre-fetched tokens may be spent locally before going back to Redis
+    private Duration prefetchTtl = Duration.ofSeconds(1);
+    // How long to skip Redis after it failed, using per-instance buckets meanwhile
+    private Duration redisRetryAfter = Duration.ofSeconds(5);
+    // Idle keys are forgotten after this long
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Duration wheelTick = Duration.ofSeconds(1);
+    // Must exceed idle-timeout / wheel-tick
+    private int wheelSize = 1024;
+    // Hard cap on keys tracked per instance; extra keys share one overflow bucket
+    private int maxTrackedKeys = 100_000;
+    // Proxy addresses or CIDR ranges whose X-Forwarded-For is believed; empty trusts none
+    private List<String> trustedProxies = new ArrayList<>();
+    // Tier name (anonymous, user, premium-user, admin) to limit
+    private Map<String, Limit> tiers = new HashMap<>();
+    // Route id to per-tier overrides
+    private Map<String, Map<String, Limit>> routes = new HashMap<>();
+
+    public Limit limitFor(String routeId, String tier) {
+        Map<String, Limit> routeLimits = routes.get(routeId);
+
+        if (routeLimits != null && routeLimits.containsKey(tier)) {
+            return routeLimits.get(tier);
+        }
+
+        Limit limit = tiers.get(tier);
+
+        return limit != null ? limit : tiers.getOrDefault(ANONYMOUS_TIER, Limit.DEFAULT);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        static final Limit DEFAULT = new Limit(3, Duration.ofSeconds(10));
+
+        private long capacity;
+        private Duration period;
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.apigateway.config;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Cluster-wide token buckets kept in Redis. All refill and take logic runs inside one
+ * Lua script, so concurrent gateway replicas cannot double-spend a bucket.
+ */
+@Component
+public class RedisTokenBucket {
+    private static final String KEY_PREFIX = "gateway:rate-limit:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisScript<Long> script =
+            RedisScript.of(new ClassPathResource("scripts/rate_limit.lua"), Long.class);
+
+    public RedisTokenBucket(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Takes up to {@code requested} tokens and returns how many were granted.
+     */
+    public long acquire(String key, RateLimitProperties.Limit limit, long requested) {
+        Long granted = redisTemplate.execute(
+                script,
+                List.of(KEY_PREFIX + key),
+                Long.toString(limit.getCapacity()),
+                Long.toString(limit.getPeriod().toMillis()),
+                Long.toString(requested)
+        );
+
+        return granted == null ? 0 : granted;
+    }
+}
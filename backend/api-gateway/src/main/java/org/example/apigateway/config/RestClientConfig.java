@@ -1,11 +1,13 @@
 package org.example.apigateway.config;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestClient;
 
 @Configuration
+@EnableConfigurationProperties(DownstreamProperties.class)
 public class RestClientConfig {
 
     @Bean
@@ -13,10 +15,17 @@ public class RestClientConfig {
         return RestClient.builder();
     }
 
+    /**
+     * Buffered client for calls made to auth-service on the gateway's own behalf
+     * (token validation, key fetches, login). It shares the auth-service pool.
+     * Proxied traffic goes through {@link DownstreamClients}, whose clients have no
+     * interceptors so bodies can be streamed.
+     */
     @Bean
     @Qualifier("downstreamRestClient")
-    public RestClient downstreamRestClient(RestClient.Builder builder) {
+    public RestClient downstreamRestClient(RestClient.Builder builder, DownstreamClients downstreamClients) {
         return builder
+                .requestFactory(downstreamClients.requestFactory("auth"))
                 .requestInterceptor(new DownstreamHeadersInterceptor())
                 .build();
     }
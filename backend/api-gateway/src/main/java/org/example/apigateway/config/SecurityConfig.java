@@ -1,6 +1,7 @@
 package org.example.apigateway.config;
 
 import lombok.RequiredArgsConstructor;
+import org.example.apigateway.routing.RouteRegistry;
 import org.example.apigateway.validation.JwtAuthEntryPoint;
 import org.example.apigateway.validation.JwtAuthFilter;
 import org.springframework.context.annotation.Bean;
@@ -20,18 +21,23 @@ public class SecurityConfig {
     private final JwtAuthFilter jwtAuthFilter;
     private final JwtAuthEntryPoint jwtAuthEntryPoint;
     private final RateLimitFilter rateLimitFilter;
+    private final RouteRegistry routeRegistry;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                        // Token revocation is for internal consumers only
+                        .requestMatchers("/api/v1/auth/users/**")
+                        .denyAll()
                         .requestMatchers(
-                                "/api/v1/auth/**",
                                 "/actuator",
                                 "/actuator/**"
                         )
                         .permitAll()
+                        .requestMatchers(routeRegistry.publicPathPatterns())
+                        .permitAll()
                         .anyRequest()
                         .authenticated()
                 )
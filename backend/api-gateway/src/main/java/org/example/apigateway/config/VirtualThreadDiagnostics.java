@@ -0,0 +1,111 @@
+package org.example.apigateway.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pinning diagnostics for the virtual-thread mode ({@code spring.threads.virtual.enabled}).
+ *
+ * <p>At startup every servlet and security filter is checked for {@code synchronized}
+ * methods, which pin the carrier thread while they block. Synchronized blocks inside
+ * method bodies cannot be found by reflection, so a JFR stream also reports each
+ * pinning site the first time it is seen at runtime. Pinned time per event is exported
+ * by Micrometer's {@code jvm.threads.virtual.pinned} timer.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadDiagnostics implements DisposableBean {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final Duration PINNED_THRESHOLD = Duration.ofMillis(20);
+
+    private final Logger logger = LoggerFactory.getLogger(VirtualThreadDiagnostics.class);
+    private final ApplicationContext context;
+    private final Counter synchronizedFilterMethods;
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream recording;
+
+    public VirtualThreadDiagnostics(ApplicationContext context, MeterRegistry registry) {
+        this.context = context;
+        this.synchronizedFilterMethods = Counter.builder("gateway.threads.virtual.synchronized.filter.methods")
+                .description("Synchronized methods found on filters at startup")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scanFilters();
+
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(PINNED_THRESHOLD).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::reportPinning);
+        recording.startAsync();
+    }
+
+    @Override
+    public void destroy() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private void scanFilters() {
+        Set<Filter> filters = new LinkedHashSet<>(context.getBeansOfType(Filter.class).values());
+
+        for (FilterChainProxy proxy : context.getBeansOfType(FilterChainProxy.class).values()) {
+            for (SecurityFilterChain chain : proxy.getFilterChains()) {
+                filters.addAll(chain.getFilters());
+            }
+        }
+
+        for (Filter filter : filters) {
+            for (Class<?> type = filter.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+                for (Method method : type.getDeclaredMethods()) {
+                    if (Modifier.isSynchronized(method.getModifiers())) {
+                        synchronizedFilterMethods.increment();
+                        logger.warn("Filter method {}.{} is synchronized and will pin virtual threads",
+                                type.getName(), method.getName());
+                    }
+                }
+            }
+        }
+    }
+
+    private void reportPinning(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return;
+        }
+
+        String site = event.getStackTrace().getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .filter(name -> !name.startsWith("java.") && !name.startsWith("jdk."))
+                .findFirst()
+                .orElse("unknown");
+
+        if (reportedSites.add(site)) {
+            logger.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+        }
+    }
+}
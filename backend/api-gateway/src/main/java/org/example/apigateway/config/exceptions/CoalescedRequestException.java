@@ -0,0 +1,14 @@
+package org.example.apigateway.config.exceptions;
+
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * A coalesced caller's copy of the shared call's I/O failure. Only the caller that made
+ * the call counts it against the backend's concurrency limit.
+ */
+public class CoalescedRequestException extends ResourceAccessException {
+    public CoalescedRequestException(ResourceAccessException shared) {
+        super(shared.getMessage());
+        initCause(shared);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.apigateway.config.exceptions;
+
+public class RouteNotFoundException extends RuntimeException {
+    public RouteNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.apigateway.config.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
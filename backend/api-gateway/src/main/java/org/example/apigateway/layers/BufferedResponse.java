@@ -0,0 +1,10 @@
+package org.example.apigateway.layers;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * A downstream response read fully into memory so it can be written to more than one
+ * client. Treat {@code body} as read-only; it is shared between those writers.
+ */
+public record BufferedResponse(int status, HttpHeaders headers, byte[] body) {
+}
@@ -1,44 +1,149 @@
 package org.example.apigateway.layers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.apigateway.config.exceptions.CoalescedRequestException;
+import org.example.apigateway.config.exceptions.RouteNotFoundException;
+import org.example.apigateway.config.exceptions.ServiceOverloadedException;
+import org.example.apigateway.metrics.GatewayMetrics;
+import org.example.apigateway.resilience.ConcurrencyLimiter;
+import org.example.apigateway.routing.Route;
+import org.example.apigateway.routing.RouteRegistry;
+import org.example.apigateway.users.User;
+import org.example.apigateway.validation.ValidatedTokenCache;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.Map;
+import java.util.function.Function;
 import com.fasterxml.jackson.core.type.TypeReference;
 
+/**
+ * Single entry point for every proxied path. Targets, rewrites, timeouts, retries
+ * and auth requirements come from the route table in {@code gateway.routing.routes};
+ * local actuator endpoints are matched by Actuator's own handler mapping first.
+ * Every proxied call holds a slot in its route's adaptive concurrency limit.
+ */
 @RestController
 public class GatewayController {
     private final ObjectMapper objectMapper;
     private final GatewayService gatewayService;
+    private final RouteRegistry routeRegistry;
+    private final ValidatedTokenCache tokenCache;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final RequestCoalescer requestCoalescer;
+    private final ResponseCache responseCache;
+    private final GatewayMetrics metrics;
     private final Duration ACCESS_TOKEN_TTL;
     private final Duration REFRESH_TOKEN_TTL;
 
     public GatewayController(ObjectMapper objectMapper,
                              GatewayService gatewayService,
+                             RouteRegistry routeRegistry,
+                             ValidatedTokenCache tokenCache,
+                             ConcurrencyLimiter concurrencyLimiter,
+                             RequestCoalescer requestCoalescer,
+                             ResponseCache responseCache,
+                             GatewayMetrics metrics,
                              @Value("${ACCESS_TOKEN_TTL}") Duration ACCESS_TOKEN_TTL,
                              @Value("${REFRESH_TOKEN_TTL}") Duration REFRESH_TOKEN_TTL) {
         this.objectMapper = objectMapper;
         this.gatewayService = gatewayService;
+        this.routeRegistry = routeRegistry;
+        this.tokenCache = tokenCache;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.requestCoalescer = requestCoalescer;
+        this.responseCache = responseCache;
+        this.metrics = metrics;
         this.ACCESS_TOKEN_TTL = ACCESS_TOKEN_TTL;
         this.REFRESH_TOKEN_TTL = REFRESH_TOKEN_TTL;
     }
 
-    @RequestMapping("/api/v1/auth/**")
-    public ResponseEntity<String> proxyToAuthService(
-            HttpServletRequest request,
-            HttpServletResponse response,
-            @RequestBody(required = false) Object body) throws JsonProcessingException {
-        ResponseEntity<String> serviceResponse = gatewayService.proxyToService(request, body, "http://auth-service:8081");
+    @RequestMapping({"/api/**", "/actuator/*/**"})
+    public void proxy(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Route route = routeRegistry.match(request.getRequestURI())
+                .orElseThrow(() -> new RouteNotFoundException("No route for " + request.getRequestURI()));
+        long start = System.nanoTime();
+        Exception failure = null;
+
+        try {
+            proxyWithinLimit(route, request, response);
+        } catch (IOException | RuntimeException ex) {
+            failure = ex;
+
+            throw ex;
+        } finally {
+            metrics.recordRequest(route, failure == null ? response.getStatus() : statusOf(failure), System.nanoTime() - start);
+        }
+    }
+
+    private void proxyWithinLimit(Route route,
+                                  HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
+        ConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(route);
+        boolean released = false;
+
+        try {
+            boolean read = HttpMethod.GET.matches(request.getMethod());
+
+            if (route.captureTokens()) {
+                proxyCapturingTokens(route, request, response);
+            } else if (read && (route.isCached() || route.coalesce() || route.hedge())) {
+                proxyBuffered(route, request, response, permit);
+            } else {
+                gatewayService.streamToService(route, request, response, permit);
+            }
+
+            if (!read && !HttpMethod.HEAD.matches(request.getMethod()) && !HttpMethod.OPTIONS.matches(request.getMethod())) {
+                responseCache.invalidate(route, principal());
+            }
+        } catch (CoalescedRequestException ex) {
+            // The caller that made the shared call already recorded the drop
+            released = true;
+            permit.ignored();
+
+            throw ex;
+        } catch (ResourceAccessException ex) {
+            released = true;
+            permit.dropped();
+
+            throw ex;
+        } catch (ServiceOverloadedException ex) {
+            released = true;
+            permit.ignored();
+
+            throw ex;
+        } finally {
+            if (!released) {
+                permit.success();
+            }
+        }
+    }
+
+    private void proxyCapturingTokens(Route route,
+                                      HttpServletRequest request,
+                                      HttpServletResponse response) throws IOException {
+        if (request.getRequestURI().endsWith("/logout")) {
+            invalidateAccessToken(request);
+        }
+
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        ResponseEntity<String> serviceResponse = gatewayService.proxyToService(route, request, body);
         String responseBody = serviceResponse.getBody();
 
-        if (responseBody != null) {
+        if (responseBody != null && !responseBody.isBlank()) {
             Map<String, Object> responseMap = objectMapper.readValue(responseBody, new TypeReference<>() {});
 
             if (responseMap.containsKey("accessToken") && responseMap.containsKey("refreshToken")) {
@@ -65,58 +170,77 @@ public class GatewayController {
             }
         }
 
-        return ResponseEntity
-                .status(serviceResponse.getStatusCode())
-                .headers(serviceResponse.getHeaders())
-                .body(responseBody);
+        gatewayService.writeResponse(serviceResponse, response);
     }
 
-    @RequestMapping("/api/v1/users/**")
-    public ResponseEntity<String> proxyToUserService(
-            HttpServletRequest request,
-            @RequestBody(required = false) Object body) {
-        return gatewayService.proxyToService(request, body, "http://user-service:8082");
+    /**
+     * GETs whose response is buffered so it can be shared or raced: coalesced with
+     * identical in-flight requests, served from the response cache and/or hedged.
+     */
+    private void proxyBuffered(Route route,
+                               HttpServletRequest request,
+                               HttpServletResponse response,
+                               ConcurrencyLimiter.Permit permit) throws IOException {
+        String principal = principal();
+        String key = requestKey(principal, request);
+        // On cached routes the key carries the cache version, so a call that started
+        // before a mutation is never shared with callers that missed after it
+        Function<String, BufferedResponse> loader = coalesceKey -> {
+            BufferedResponse buffered = route.coalesce()
+                    ? requestCoalescer.execute(route, coalesceKey, () -> gatewayService.fetch(route, request))
+                    : gatewayService.fetch(route, request);
+            // Writing the buffered body to the client is not backend latency
+            permit.responseReceived();
+
+            return buffered;
+        };
+
+        if (route.isCached()) {
+            responseCache.serve(route, principal, key, request, response, loader);
+        } else {
+            gatewayService.writeBuffered(loader.apply(key), response);
+        }
     }
 
-    @RequestMapping("/api/v1/accounts/**")
-    public ResponseEntity<String> proxyToAccountService(
-            HttpServletRequest request,
-            @RequestBody(required = false) Object body) {
-        return gatewayService.proxyToService(request, body, "http://account-service:8083");
-    }
+    // Status the exception handlers will answer with
+    private int statusOf(Exception failure) {
+        if (failure instanceof ServiceOverloadedException) {
+            return HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+        }
+        if (failure instanceof HttpStatusCodeException statusException) {
+            return statusException.getStatusCode().value();
+        }
 
-    @RequestMapping("/api/v1/transactions/**")
-    public ResponseEntity<String> proxyToTransactionsService(
-            HttpServletRequest request,
-            @RequestBody(required = false) Object body) {
-        return gatewayService.proxyToService(request, body, "http://transactions-service:8084");
+        return HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
     }
 
-    @RequestMapping("/actuator/auth-service/**")
-    public ResponseEntity<String> proxyToAuthServiceActuator(
-            HttpServletRequest request,
-            @RequestBody(required = false) String body) {
-        return gatewayService.proxyToServiceWithPathRewrite(request, body, "http://auth-service:8081", "/actuator/auth-service");
-    }
+    private String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-    @RequestMapping("/actuator/user-service/**")
-    public ResponseEntity<String> proxyToUserServiceActuator(
-            HttpServletRequest request,
-            @RequestBody(required = false) String body) {
-        return gatewayService.proxyToServiceWithPathRewrite(request, body, "http://user-service:8082", "/actuator/user-service");
+        return authentication != null && authentication.getPrincipal() instanceof User user
+                ? user.getId().toString()
+                : "anonymous";
     }
 
-    @RequestMapping("/actuator/account-service/**")
-    public ResponseEntity<String> proxyToAccountServiceActuator(
-            HttpServletRequest request,
-            @RequestBody(required = false) String body) {
-        return gatewayService.proxyToServiceWithPathRewrite(request, body, "http://account-service:8083", "/actuator/account-service");
+    // Responses are per user and may vary by Accept, so both are part of the key
+    private String requestKey(String principal, HttpServletRequest request) {
+        String query = request.getQueryString();
+
+        return principal + " " + request.getHeader(HttpHeaders.ACCEPT) + " " + request.getRequestURI()
+                + (query == null ? "" : "?" + query);
     }
 
-    @RequestMapping("/actuator/transactions-service/**")
-    public ResponseEntity<String> proxyToTransactionsServiceActuator(
-            HttpServletRequest request,
-            @RequestBody(required = false) String body) {
-        return gatewayService.proxyToServiceWithPathRewrite(request, body, "http://transactions-service:8084", "/actuator/transactions-service");
+    private void invalidateAccessToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+
+        if (cookies == null) {
+            return;
+        }
+
+        for (Cookie cookie : cookies) {
+            if (cookie.getName().equals("access_token")) {
+                tokenCache.invalidate(cookie.getValue());
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,52 +1,231 @@
 package org.example.apigateway.layers;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.apigateway.config.CompressionFilter;
+import org.example.apigateway.config.DownstreamClients;
+import org.example.apigateway.config.OutboundHeaders;
+import org.example.apigateway.metrics.GatewayMetrics;
+import org.example.apigateway.resilience.Bulkheads;
+import org.example.apigateway.resilience.ConcurrencyLimiter;
+import org.example.apigateway.resilience.RetryBudget;
+import org.example.apigateway.routing.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
 @Service
-public class GatewayService {
+public class GatewayService implements DisposableBean {
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection",
+            "keep-alive",
+            "proxy-authenticate",
+            "proxy-authorization",
+            "te",
+            "trailer",
+            "transfer-encoding",
+            "upgrade"
+    );
+
+    private final Logger logger = LoggerFactory.getLogger(GatewayService.class);
     private final RestClient downstreamRestClient;
+    private final DownstreamClients downstreamClients;
+    private final GatewayMetrics metrics;
+    private final RetryBudget retryBudget;
+    private final Bulkheads bulkheads;
+    private final MeterRegistry meterRegistry;
+    // Route id to outcome to counter, so hedges do not go through the registry each time
+    private final Map<String, Map<String, Counter>> hedgeCounters = new ConcurrentHashMap<>();
+    // Hedged attempts only wait on I/O, so a virtual thread each is enough
+    private final ExecutorService hedgeExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
-    public GatewayService(@Qualifier("downstreamRestClient") RestClient downstreamRestClient) {
+    public GatewayService(@Qualifier("downstreamRestClient") RestClient downstreamRestClient,
+                          DownstreamClients downstreamClients,
+                          GatewayMetrics metrics,
+                          RetryBudget retryBudget,
+                          Bulkheads bulkheads,
+                          MeterRegistry meterRegistry) {
         this.downstreamRestClient = downstreamRestClient;
+        this.downstreamClients = downstreamClients;
+        this.metrics = metrics;
+        this.retryBudget = retryBudget;
+        this.bulkheads = bulkheads;
+        this.meterRegistry = meterRegistry;
     }
 
-    public ResponseEntity<String> proxyToService(HttpServletRequest request, Object body, String serviceUrl) {
-        String uri = serviceUrl + request.getRequestURI();
-
-        String urlWithParams = addParamsToUrlIfPresent(request, uri);
-        
+    /**
+     * Buffered proxy for routes whose response the gateway has to inspect.
+     */
+    public ResponseEntity<String> proxyToService(Route route, HttpServletRequest request, byte[] body) {
         var requestSpec = downstreamRestClient
-                .method(org.springframework.http.HttpMethod.valueOf(request.getMethod()))
-                .uri(urlWithParams);
+                .method(HttpMethod.valueOf(request.getMethod()))
+                .uri(URI.create(downstreamUrl(route, request)));
 
-        if (body != null) {
+        if (body != null && body.length > 0) {
             requestSpec.body(body);
         }
 
-        return requestSpec.retrieve().toEntity(String.class);
+        try (Bulkheads.Permit ignored = bulkheads.acquire(route)) {
+            return requestSpec.retrieve().toEntity(String.class);
+        }
     }
 
-    public ResponseEntity<String> proxyToServiceWithPathRewrite(HttpServletRequest request, Object body, String serviceUrl, String stripPrefix) {
-        String originalPath = request.getRequestURI();
-        String rewrittenPath = originalPath.startsWith(stripPrefix) ? 
-            originalPath.substring(stripPrefix.length()) : originalPath;
-        String uri = serviceUrl + rewrittenPath;
-        String urlWithParams = addParamsToUrlIfPresent(request, uri);
-            
-        var requestSpec = downstreamRestClient
-                .method(org.springframework.http.HttpMethod.valueOf(request.getMethod()))
-                .uri(urlWithParams);
+    /**
+     * Pass-through proxy: request and response bodies are copied between the servlet
+     * streams and the downstream connection without being materialised on the heap.
+     * Backends are asked for gzip; a gzip body is relayed as-is to clients that accept
+     * it and decoded on the fly for those that don't. Downstream error statuses are
+     * relayed as-is. Connection failures are retried
+     * according to the route's policy for idempotent methods, as long as nothing has
+     * been relayed to the client yet. Once the downstream status and headers have been
+     * copied onto the response a failure is final, even if the servlet buffer was never
+     * flushed: a second attempt would add its headers and body to those already there.
+     * {@code permit} is told when the request body has gone out and when the response
+     * headers came back, so the route's latency sample covers only the backend.
+     */
+    public void streamToService(Route route,
+                                HttpServletRequest request,
+                                HttpServletResponse response,
+                                ConcurrencyLimiter.Permit permit) throws IOException {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        URI uri = URI.create(downstreamUrl(route, request));
+        retryBudget.recordRequest();
+        AtomicBoolean relayed = new AtomicBoolean();
+        int attempts = 0;
 
-        if (body != null) {
-            requestSpec.body(body);
+        while (true) {
+            attempts++;
+
+            try {
+                stream(route, method, uri, request, response, permit, relayed);
+
+                return;
+            } catch (ResourceAccessException ex) {
+                if (!route.canRetry(method, attempts) || relayed.get() || !retryBudget.tryAcquire()) {
+                    throw ex;
+                }
+
+                logRetry(route, method, uri, ex);
+                backoff(route);
+            }
+        }
+    }
+
+    /**
+     * Bodiless request whose response is read fully into memory, for responses that
+     * are shared between several clients. Retries follow the route's policy. On routes
+     * with hedging, a GET that is still waiting for response headers after the route's
+     * recent p95 gets a second attempt and the first successful response wins. The
+     * second attempt may go over a fresh connection and so reach another replica behind
+     * the service name, but nothing pins it to a different one.
+     */
+    public BufferedResponse fetch(Route route, HttpServletRequest request) {
+        return fetch(
+                route,
+                HttpMethod.valueOf(request.getMethod()),
+                URI.create(downstreamUrl(route, request)),
+                outboundHeaders(request)
+        );
+    }
+
+    /**
+     * GET issued by the gateway itself on behalf of the current request, e.g. one part
+     * of a composite response. Same retry, hedging and metrics as {@link #fetch}.
+     */
+    public BufferedResponse get(Route route, String path, String query, HttpHeaders outbound) {
+        String url = downstreamClients.url(route.service()) + route.downstreamPath(path);
+
+        return fetch(route, HttpMethod.GET, URI.create(query == null ? url : url + "?" + query), outbound);
+    }
+
+    /**
+     * Headers forwarded downstream for {@code request}. Taken once on the request thread
+     * so calls made from other threads never touch the servlet request.
+     */
+    public HttpHeaders outboundHeaders(HttpServletRequest request) {
+        HttpHeaders outbound = new HttpHeaders();
+        copyRequestHeaders(request, outbound);
+
+        return outbound;
+    }
+
+    private BufferedResponse fetch(Route route, HttpMethod method, URI uri, HttpHeaders outbound) {
+        retryBudget.recordRequest();
+        int attempts = 0;
+
+        while (true) {
+            attempts++;
+
+            try {
+                if (route.hedge() && HttpMethod.GET.equals(method)) {
+                    return hedged(route, method, uri, outbound);
+                }
+
+                return exchangeBuffered(route, method, uri, outbound);
+            } catch (ResourceAccessException ex) {
+                if (!route.canRetry(method, attempts) || !retryBudget.tryAcquire()) {
+                    throw ex;
+                }
+
+                logRetry(route, method, uri, ex);
+                backoff(route);
+            }
         }
+    }
+
+    public void writeBuffered(BufferedResponse buffered, HttpServletResponse response) throws IOException {
+        response.setStatus(buffered.status());
+        copyResponseHeaders(buffered.headers(), response);
+        response.getOutputStream().write(buffered.body());
+        response.flushBuffer();
+    }
+
+    public void writeResponse(ResponseEntity<String> serviceResponse, HttpServletResponse response) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(serviceResponse.getHeaders());
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+
+        response.setStatus(serviceResponse.getStatusCode().value());
+        copyResponseHeaders(headers, response);
+
+        if (serviceResponse.getBody() != null) {
+            response.getOutputStream().write(serviceResponse.getBody().getBytes(StandardCharsets.UTF_8));
+        }
+        response.flushBuffer();
+    }
 
-        return requestSpec.retrieve().toEntity(String.class);
+    @Override
+    public void destroy() {
+        hedgeExecutor.shutdownNow();
     }
 
     public Cookie createCookie(String name, String value, int maxAge, boolean httpOnly, String path, boolean secure) {
@@ -59,6 +238,230 @@ public class GatewayService {
         return accessTokenCookie;
     }
 
+    private BufferedResponse hedged(Route route, HttpMethod method, URI uri, HttpHeaders outbound) {
+        long p95 = metrics.downstreamP95Nanos(route, GatewayMetrics.PHASE_TTFB);
+
+        if (p95 == 0) {
+            return exchangeBuffered(route, method, uri, outbound);
+        }
+
+        long delay = Math.max(route.hedgeMinDelay().toNanos(), p95);
+        CompletableFuture<BufferedResponse> first = CompletableFuture.supplyAsync(
+                () -> exchangeBuffered(route, method, uri, outbound), hedgeExecutor);
+
+        try {
+            return first.get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (!retryBudget.tryAcquire()) {
+                countHedge(route, "budget_exhausted");
+
+                return await(first);
+            }
+        } catch (ExecutionException e) {
+            return await(first);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new ResourceAccessException("Interrupted while waiting for downstream response");
+        }
+
+        countHedge(route, "fired");
+        CompletableFuture<BufferedResponse> second = CompletableFuture.supplyAsync(
+                () -> exchangeBuffered(route, method, uri, outbound), hedgeExecutor);
+        CompletableFuture<BufferedResponse> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+
+        first.whenComplete((response, error) -> complete(winner, response, error, failures));
+        second.whenComplete((response, error) -> {
+            if (complete(winner, response, error, failures)) {
+                countHedge(route, "won");
+            }
+        });
+
+        return await(winner);
+    }
+
+    // First success wins; the call only fails once both attempts have failed
+    private boolean complete(CompletableFuture<BufferedResponse> winner,
+                             BufferedResponse response,
+                             Throwable error,
+                             AtomicInteger failures) {
+        if (error == null) {
+            return winner.complete(response);
+        }
+        if (failures.incrementAndGet() == 2) {
+            winner.completeExceptionally(error);
+        }
+
+        return false;
+    }
+
+    private BufferedResponse await(CompletableFuture<BufferedResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new ResourceAccessException("Interrupted while waiting for downstream response");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            throw new IllegalStateException("Downstream call failed", cause);
+        }
+    }
+
+    private void countHedge(Route route, String outcome) {
+        hedgeCounters.computeIfAbsent(route.id(), routeId -> new ConcurrentHashMap<>())
+                .computeIfAbsent(outcome, key -> Counter.builder("gateway.hedge.requests")
+                        .description("Hedged GETs by outcome")
+                        .tag("route", route.id())
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private BufferedResponse exchangeBuffered(Route route, HttpMethod method, URI uri, HttpHeaders outbound) {
+        try (Bulkheads.Permit ignored = bulkheads.acquire(route)) {
+            long start = System.nanoTime();
+
+            return downstreamClients.client(route.service(), route.timeout())
+                    .method(method)
+                    .uri(uri)
+                    .headers(headers -> headers.addAll(outbound))
+                    .exchange((clientRequest, clientResponse) -> {
+                        long headersAt = System.nanoTime();
+                        metrics.recordDownstream(GatewayMetrics.PHASE_TTFB, route, headersAt - start);
+
+                        HttpHeaders headers = new HttpHeaders();
+                        headers.putAll(clientResponse.getHeaders());
+
+                        try (InputStream body = clientResponse.getBody()) {
+                            BufferedResponse buffered = new BufferedResponse(
+                                    clientResponse.getStatusCode().value(),
+                                    HttpHeaders.readOnlyHttpHeaders(headers),
+                                    StreamUtils.copyToByteArray(body)
+                            );
+                            metrics.recordDownstream(GatewayMetrics.PHASE_BODY, route, System.nanoTime() - headersAt);
+
+                            return buffered;
+                        }
+                    });
+        }
+    }
+
+    private void stream(Route route,
+                        HttpMethod method,
+                        URI uri,
+                        HttpServletRequest request,
+                        HttpServletResponse response,
+                        ConcurrencyLimiter.Permit permit,
+                        AtomicBoolean relayed) throws IOException {
+        boolean clientAcceptsGzip = CompressionFilter.acceptsGzip(request);
+        var requestSpec = downstreamClients.client(route.service(), route.timeout())
+                .method(method)
+                .uri(uri)
+                .headers(headers -> {
+                    copyRequestHeaders(request, headers);
+                    // Compressed on the backend hop too; relayed as-is to clients that accept it
+                    headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+                });
+
+        if (hasBody(request)) {
+            requestSpec.body(outputStream -> {
+                StreamUtils.copy(request.getInputStream(), outputStream);
+                permit.requestSent();
+            });
+        }
+
+        try (Bulkheads.Permit ignored = bulkheads.acquire(route)) {
+            // Includes pool wait, connect and sending the request body
+            long start = System.nanoTime();
+
+            requestSpec.exchange((clientRequest, clientResponse) -> {
+                long headersAt = System.nanoTime();
+                metrics.recordDownstream(GatewayMetrics.PHASE_TTFB, route, headersAt - start);
+                permit.responseReceived();
+
+                HttpHeaders headers = clientResponse.getHeaders();
+                boolean decode = !clientAcceptsGzip && "gzip".equalsIgnoreCase(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+
+                if (decode) {
+                    HttpHeaders decoded = new HttpHeaders();
+                    decoded.putAll(headers);
+                    decoded.remove(HttpHeaders.CONTENT_ENCODING);
+                    decoded.remove(HttpHeaders.CONTENT_LENGTH);
+                    headers = decoded;
+                }
+
+                relayed.set(true);
+                response.setStatus(clientResponse.getStatusCode().value());
+                copyResponseHeaders(headers, response);
+
+                try (InputStream body = decode ? new GZIPInputStream(clientResponse.getBody()) : clientResponse.getBody()) {
+                    StreamUtils.copy(body, response.getOutputStream());
+                }
+                response.flushBuffer();
+                metrics.recordDownstream(GatewayMetrics.PHASE_BODY, route, System.nanoTime() - headersAt);
+
+                return null;
+            });
+        }
+    }
+
+    private void copyRequestHeaders(HttpServletRequest request, HttpHeaders headers) {
+        OutboundHeaders.of(request).applyTo(headers);
+
+        String contentType = request.getContentType();
+        if (contentType != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null) {
+            headers.set(HttpHeaders.ACCEPT, accept);
+        }
+        if (request.getContentLengthLong() >= 0) {
+            headers.setContentLength(request.getContentLengthLong());
+        }
+    }
+
+    private void copyResponseHeaders(HttpHeaders headers, HttpServletResponse response) {
+        headers.forEach((name, values) -> {
+            if (HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                return;
+            }
+
+            for (String value : values) {
+                response.addHeader(name, value);
+            }
+        });
+    }
+
+    private boolean hasBody(HttpServletRequest request) {
+        return request.getContentLengthLong() > 0 || request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null;
+    }
+
+    private void logRetry(Route route, HttpMethod method, URI uri, ResourceAccessException ex) {
+        logger.warn("Retrying {} {} on route {} after: {}", method, uri.getPath(), route.id(), ex.getMessage());
+    }
+
+    private void backoff(Route route) {
+        try {
+            Thread.sleep(route.retryBackoff().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String downstreamUrl(Route route, HttpServletRequest request) {
+        String uri = downstreamClients.url(route.service()) + route.downstreamPath(request.getRequestURI());
+
+        return addParamsToUrlIfPresent(request, uri);
+    }
+
     private String addParamsToUrlIfPresent(HttpServletRequest request, String url) {
         if (request.getQueryString() != null) {
             url += "?" + request.getQueryString();
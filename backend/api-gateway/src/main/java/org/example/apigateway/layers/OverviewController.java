@@ -0,0 +1,39 @@
+package org.example.apigateway.layers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.apigateway.users.User;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+/**
+ * Composite read served by the gateway itself rather than proxied: one round trip for
+ * what the client would otherwise fetch from three routes. Query parameters
+ * ({@code page}, {@code size}) are passed on to the transactions part.
+ */
+@RestController
+public class OverviewController {
+    private final OverviewService overviewService;
+
+    public OverviewController(OverviewService overviewService) {
+        this.overviewService = overviewService;
+    }
+
+    @GetMapping("/api/v1/overview/{accountId}")
+    public ResponseEntity<OverviewResponse> overview(@PathVariable UUID accountId,
+                                                     @AuthenticationPrincipal User user,
+                                                     HttpServletRequest request) {
+        OverviewResponse overview = overviewService.overview(user, accountId.toString(), request);
+
+        if (overview.user() == null && overview.account() == null && overview.transactions() == null) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(overview);
+        }
+
+        return ResponseEntity.ok(overview);
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.apigateway.layers;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.overview")
+public class OverviewProperties {
+    private Part user = new Part("users", Duration.ofSeconds(2));
+    private Part account = new Part("accounts", Duration.ofSeconds(5));
+    private Part transactions = new Part("transactions", Duration.ofSeconds(3));
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Part {
+        // Route id under gateway.routing.routes the part is fetched through
+        private String route;
+        // After this long the part is reported as missing instead of holding up the response
+        private Duration timeout;
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.apigateway.layers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+
+/**
+ * Composite account overview. Each part is the backend's JSON body, or {@code null}
+ * when the body was empty or, with an entry in {@code errors}, when that part failed,
+ * timed out or was not valid JSON.
+ */
+public record OverviewResponse(
+        JsonNode user,
+        JsonNode account,
+        JsonNode transactions,
+        boolean partial,
+        Map<String, PartError> errors
+) {
+    public record PartError(int status, String error) {
+    }
+}
@@ -0,0 +1,202 @@
+package org.example.apigateway.layers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.apigateway.config.exceptions.ServiceOverloadedException;
+import org.example.apigateway.resilience.ConcurrencyLimiter;
+import org.example.apigateway.routing.Route;
+import org.example.apigateway.routing.RouteRegistry;
+import org.example.apigateway.users.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds the account overview by fetching the user, the account and its first page of
+ * transactions in parallel. The caller's token was validated once by the filter chain;
+ * all three calls reuse the same forwarded identity headers. Each part has its own
+ * timeout, and a part that fails or times out is reported in {@code errors} while the
+ * others are still returned.
+ */
+@Service
+@EnableConfigurationProperties(OverviewProperties.class)
+public class OverviewService implements DisposableBean {
+    private final Logger logger = LoggerFactory.getLogger(OverviewService.class);
+    private final GatewayService gatewayService;
+    private final ObjectMapper objectMapper;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final MeterRegistry registry;
+    // Part name to outcome to counter
+    private final Map<String, Map<String, Counter>> partCounters = new ConcurrentHashMap<>();
+    private final Route userRoute;
+    private final Route accountRoute;
+    private final Route transactionsRoute;
+    private final OverviewProperties properties;
+    // Parts only wait on I/O, so a virtual thread each is enough
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public OverviewService(GatewayService gatewayService,
+                           ObjectMapper objectMapper,
+                           ConcurrencyLimiter concurrencyLimiter,
+                           RouteRegistry routeRegistry,
+                           OverviewProperties properties,
+                           MeterRegistry registry) {
+        this.gatewayService = gatewayService;
+        this.objectMapper = objectMapper;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.registry = registry;
+        this.properties = properties;
+        this.userRoute = requireRoute(routeRegistry, properties.getUser());
+        this.accountRoute = requireRoute(routeRegistry, properties.getAccount());
+        this.transactionsRoute = requireRoute(routeRegistry, properties.getTransactions());
+    }
+
+    public OverviewResponse overview(User user, String accountId, HttpServletRequest request) {
+        HttpHeaders outbound = gatewayService.outboundHeaders(request);
+        long start = System.nanoTime();
+
+        Future<Part> userPart = submit(userRoute, "/api/v1/users/" + user.getId(), null, outbound);
+        Future<Part> accountPart = submit(accountRoute, "/api/v1/accounts/" + accountId, null, outbound);
+        Future<Part> transactionsPart = submit(transactionsRoute, "/api/v1/transactions/" + accountId, request.getQueryString(), outbound);
+
+        Map<String, OverviewResponse.PartError> errors = new LinkedHashMap<>();
+        JsonNode userJson = await("user", userPart, properties.getUser(), start, errors);
+        JsonNode accountJson = await("account", accountPart, properties.getAccount(), start, errors);
+        JsonNode transactionsJson = await("transactions", transactionsPart, properties.getTransactions(), start, errors);
+
+        return new OverviewResponse(userJson, accountJson, transactionsJson, !errors.isEmpty(), errors);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private Future<Part> submit(Route route, String path, String query, HttpHeaders outbound) {
+        return executor.submit(() -> {
+            ConcurrencyLimiter.Permit permit;
+
+            try {
+                permit = concurrencyLimiter.acquire(route);
+            } catch (ServiceOverloadedException e) {
+                return new Part(503, null, "overloaded");
+            }
+
+            try {
+                BufferedResponse response = gatewayService.get(route, path, query, outbound);
+                permit.success();
+
+                return parse(response);
+            } catch (ResourceAccessException e) {
+                // Cancelled at the part's deadline: the read was aborted here, not by a slow backend
+                if (Thread.currentThread().isInterrupted()) {
+                    permit.ignored();
+                } else {
+                    permit.dropped();
+                }
+
+                throw e;
+            } catch (ServiceOverloadedException e) {
+                permit.ignored();
+
+                return new Part(503, null, "overloaded");
+            } catch (RuntimeException e) {
+                permit.success();
+
+                throw e;
+            }
+        });
+    }
+
+    private JsonNode await(String name,
+                         Future<Part> future,
+                         OverviewProperties.Part config,
+                         long startNanos,
+                         Map<String, OverviewResponse.PartError> errors) {
+        String outcome = "ok";
+
+        try {
+            long remaining = config.getTimeout().toNanos() - (System.nanoTime() - startNanos);
+            Part part = future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+
+            if (part.status() >= 200 && part.status() < 300) {
+                return part.body();
+            }
+
+            outcome = part.error() != null ? part.error() : "error";
+            errors.put(name, new OverviewResponse.PartError(part.status(), outcome));
+        } catch (TimeoutException e) {
+            // Interrupting the virtual thread aborts its blocking read and frees the connection
+            future.cancel(true);
+            outcome = "timeout";
+            errors.put(name, new OverviewResponse.PartError(504, outcome));
+        } catch (ExecutionException e) {
+            logger.warn("Overview part {} failed: {}", name, e.getCause().getMessage());
+            outcome = "error";
+            errors.put(name, new OverviewResponse.PartError(502, outcome));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            outcome = "interrupted";
+            errors.put(name, new OverviewResponse.PartError(503, outcome));
+        } finally {
+            count(name, outcome);
+        }
+
+        return null;
+    }
+
+    private void count(String part, String outcome) {
+        partCounters.computeIfAbsent(part, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(outcome, key -> Counter.builder("gateway.overview.parts")
+                        .description("Overview parts by outcome")
+                        .tag("part", part)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .increment();
+    }
+
+    private static Route requireRoute(RouteRegistry routeRegistry, OverviewProperties.Part part) {
+        return routeRegistry.route(part.getRoute())
+                .orElseThrow(() -> new IllegalStateException("Overview part refers to unknown route " + part.getRoute()));
+    }
+
+    // Parsed here so a body that is not JSON fails its part instead of the whole response
+    private Part parse(BufferedResponse response) {
+        boolean success = response.status() >= 200 && response.status() < 300;
+
+        if (!success || response.body().length == 0) {
+            return new Part(response.status(), null, null);
+        }
+
+        try {
+            JsonNode body = objectMapper.readTree(response.body());
+
+            // Whitespace-only bodies parse to a missing node
+            return new Part(response.status(), body.isMissingNode() ? null : body, null);
+        } catch (IOException e) {
+            return new Part(502, null, "invalid_body");
+        }
+    }
+
+    private record Part(int status, JsonNode body, String error) {
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.apigateway.layers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.apigateway.config.exceptions.CoalescedRequestException;
+import org.example.apigateway.routing.Route;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for identical requests. The first caller for a key makes the
+ * downstream call; callers that arrive while it is in flight wait for its result
+ * instead of making their own. A caller that waits longer than the route's max-wait
+ * stops waiting and makes its own call. If the shared call fails, every caller
+ * waiting on it gets the same error; an I/O failure reaches them wrapped in a
+ * {@link CoalescedRequestException}, so it is counted against the backend once.
+ */
+@Component
+public class RequestCoalescer {
+    private final ConcurrentHashMap<String, CompletableFuture<BufferedResponse>> inflight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Outcomes> outcomes = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    public RequestCoalescer(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public BufferedResponse execute(Route route, String key, Supplier<BufferedResponse> call) {
+        CompletableFuture<BufferedResponse> created = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> existing = inflight.putIfAbsent(key, created);
+
+        Outcomes counters = outcomes.computeIfAbsent(route.id(), this::outcomes);
+
+        if (existing == null) {
+            counters.leader().increment();
+
+            try {
+                BufferedResponse response = call.get();
+                created.complete(response);
+
+                return response;
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+
+                throw e;
+            } finally {
+                inflight.remove(key, created);
+            }
+        }
+
+        try {
+            BufferedResponse response = existing.get(route.coalesceMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+            counters.coalesced().increment();
+
+            return response;
+        } catch (TimeoutException e) {
+            counters.timeout().increment();
+
+            return call.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ResourceAccessException cause) {
+                throw new CoalescedRequestException(cause);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw new IllegalStateException("Coalesced request failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while waiting for a coalesced request", e);
+        }
+    }
+
+    private Outcomes outcomes(String routeId) {
+        return new Outcomes(counter(routeId, "leader"), counter(routeId, "coalesced"), counter(routeId, "timeout"));
+    }
+
+    private Counter counter(String routeId, String outcome) {
+        return Counter.builder("gateway.coalesce.requests")
+                .description("GET requests by coalescing outcome")
+                .tag("route", routeId)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private record Outcomes(Counter leader, Counter coalesced, Counter timeout) {
+    }
+}
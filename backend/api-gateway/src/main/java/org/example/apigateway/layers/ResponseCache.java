@@ -0,0 +1,211 @@
+package org.example.apigateway.layers;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.apigateway.routing.Route;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Per-user cache of successful GET responses on routes with {@code cache.enabled}.
+ * Each response carries a weak ETag (SHA-256 of the body unless the backend sent one).
+ * It is weak because the same entry goes out gzipped or as-is depending on the client,
+ * and a strong ETag would have to differ between those bytes. A matching
+ * {@code If-None-Match} is answered with 304 from the cache.
+ *
+ * <p>Entries are keyed under a version per user and route. A mutation bumps the
+ * version for its route and the routes it {@code invalidates}, so that user's older
+ * entries are never read again and simply age out. Nothing else invalidates an entry:
+ * changes made by other users, by backends on their own or through another gateway
+ * instance are only seen once the TTL runs out. Routes whose data changes that way,
+ * such as account balances moved by transfers, must not be cached.
+ */
+@Component
+public class ResponseCache {
+    private static final List<String> NOT_MODIFIED_HEADERS = List.of(
+            HttpHeaders.ETAG,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.EXPIRES,
+            HttpHeaders.VARY,
+            HttpHeaders.CONTENT_LOCATION,
+            HttpHeaders.DATE
+    );
+
+    private final Cache<String, Entry> responses;
+    private final Cache<String, Long> versions;
+    private final GatewayService gatewayService;
+    private final Counter notModified;
+
+    public ResponseCache(GatewayService gatewayService,
+                         MeterRegistry registry,
+                         @Value("${gateway.response-cache.max-size:10000}") long maxSize) {
+        this.gatewayService = gatewayService;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+        // If a version is evicted it restarts at a fresh value, which only causes misses
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+        this.notModified = Counter.builder("gateway.response.cache.not.modified")
+                .description("Conditional GETs answered with 304")
+                .register(registry);
+
+        CaffeineCacheMetrics.monitor(registry, responses, "gateway.response.cache");
+    }
+
+    /**
+     * Answers from the cache or calls {@code loader} with the versioned cache key; callers
+     * that share loads (see {@link RequestCoalescer}) must key them on it.
+     */
+    public void serve(Route route,
+                      String principal,
+                      String requestKey,
+                      HttpServletRequest request,
+                      HttpServletResponse response,
+                      Function<String, BufferedResponse> loader) throws IOException {
+        String key = version(principal, route.id()) + " " + requestKey;
+        Entry entry = responses.getIfPresent(key);
+
+        if (entry == null) {
+            BufferedResponse loaded = loader.apply(key);
+
+            if (loaded.status() != HttpServletResponse.SC_OK) {
+                gatewayService.writeBuffered(loaded, response);
+
+                return;
+            }
+
+            entry = new Entry(withETag(loaded), route.cacheTtl().toNanos());
+            responses.put(key, entry);
+        }
+
+        String eTag = entry.response().headers().getETag();
+
+        if (eTag != null && matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            notModified.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            copyValidatorHeaders(entry.response().headers(), response);
+
+            return;
+        }
+
+        gatewayService.writeBuffered(entry.response(), response);
+    }
+
+    public void invalidate(Route route, String principal) {
+        long next = System.nanoTime();
+
+        versions.put(principal + ":" + route.id(), next);
+        for (String routeId : route.invalidates()) {
+            versions.put(principal + ":" + routeId, next);
+        }
+    }
+
+    private long version(String principal, String routeId) {
+        return versions.get(principal + ":" + routeId, key -> System.nanoTime());
+    }
+
+    private BufferedResponse withETag(BufferedResponse loaded) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(loaded.headers());
+
+        String eTag = headers.getETag();
+
+        if (eTag == null) {
+            headers.setETag("W/\"" + sha256(loaded.body()) + "\"");
+        } else if (!eTag.startsWith("W/")) {
+            headers.setETag("W/" + eTag);
+        }
+        if (headers.getCacheControl() == null) {
+            // Let clients keep the body but always revalidate with If-None-Match
+            headers.setCacheControl("private, no-cache");
+        }
+
+        return new BufferedResponse(loaded.status(), HttpHeaders.readOnlyHttpHeaders(headers), loaded.body());
+    }
+
+    // A 304 has to carry the headers a 200 would have sent that describe caching
+    private static void copyValidatorHeaders(HttpHeaders headers, HttpServletResponse response) {
+        for (String name : NOT_MODIFIED_HEADERS) {
+            List<String> values = headers.get(name);
+
+            if (values != null) {
+                for (String value : values) {
+                    response.addHeader(name, value);
+                }
+            }
+        }
+    }
+
+    // Weak comparison, as If-None-Match calls for: W/"x" and "x" match
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        String opaque = opaqueTag(eTag);
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+
+            if (tag.equals("*") || opaqueTag(tag).equals(opaque)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String opaqueTag(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    private String sha256(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Entry(BufferedResponse response, long ttlNanos) {
+    }
+
+    private static class EntryExpiry implements Expiry<String, Entry> {
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
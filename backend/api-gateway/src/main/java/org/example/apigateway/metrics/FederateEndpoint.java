@@ -0,0 +1,34 @@
+package org.example.apigateway.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/federate}: the backends' metrics as last scraped by
+ * {@link MetricsFederation}. Polling it never reaches a backend; the cached snapshot is
+ * written as-is.
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.federation", name = "enabled", matchIfMissing = true)
+@WebEndpoint(id = "federate")
+public class FederateEndpoint {
+    private final MetricsFederation federation;
+
+    public FederateEndpoint(MetricsFederation federation) {
+        this.federation = federation;
+    }
+
+    @ReadOperation(produces = "text/plain;version=0.0.4;charset=utf-8")
+    public WebEndpointResponse<byte[]> federate() {
+        byte[] snapshot = federation.snapshot();
+
+        if (snapshot == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+        }
+
+        return new WebEndpointResponse<>(snapshot);
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.apigateway.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.federation")
+public class FederationProperties {
+    private boolean enabled = true;
+    // How often the backends are scraped, independent of how often we are polled
+    private Duration interval = Duration.ofSeconds(15);
+    // Per-backend budget for one scrape; a slower backend is reported as down
+    private Duration timeout = Duration.ofSeconds(5);
+    private String path = "/actuator/prometheus";
+    // Label added to every federated sample, holding the backend name
+    private String label = "service";
+    // Names under gateway.downstream.services; all of them when empty
+    private List<String> services = new ArrayList<>();
+}
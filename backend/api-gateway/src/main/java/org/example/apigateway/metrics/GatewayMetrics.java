@@ -0,0 +1,101 @@
+package org.example.apigateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.example.apigateway.routing.Route;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms for proxied requests and the phases they spend time in:
+ * <ul>
+ *     <li>{@code gateway.requests{route,service,status}}: end to end, by status class</li>
+ *     <li>{@code gateway.request.phase{phase=auth|rate_limit,route}}: gateway-side checks</li>
+ *     <li>{@code gateway.downstream.phase{phase=ttfb|body,route,service}}: time until the
+ *     downstream response headers arrived, then the body copy</li>
+ * </ul>
+ * Connection setup is timed per backend as {@code gateway.downstream.connect}, next to
+ * {@code gateway.downstream.pool.wait}.
+ */
+@Component
+public class GatewayMetrics {
+    public static final String PHASE_AUTH = "auth";
+    public static final String PHASE_RATE_LIMIT = "rate_limit";
+    public static final String PHASE_TTFB = "ttfb";
+    public static final String PHASE_BODY = "body";
+    private static final double HEDGE_PERCENTILE = 0.95;
+    // Below this many samples a percentile is too noisy to act on
+    private static final long MIN_PERCENTILE_SAMPLES = 100;
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public GatewayMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordRequest(Route route, int status, long nanos) {
+        String statusClass = (status / 100) + "xx";
+
+        timers.computeIfAbsent("request:" + route.id() + ":" + statusClass, key -> histogram("gateway.requests")
+                        .description("Proxied request latency")
+                        .tag("route", route.id())
+                        .tag("service", route.service())
+                        .tag("status", statusClass)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPhase(String phase, String routeId, long nanos) {
+        timers.computeIfAbsent("phase:" + phase + ":" + routeId, key -> histogram("gateway.request.phase")
+                        .description("Time spent in gateway-side request phases")
+                        .tag("phase", phase)
+                        .tag("route", routeId)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDownstream(String phase, Route route, long nanos) {
+        timers.computeIfAbsent("downstream:" + phase + ":" + route.id(), key -> histogram("gateway.downstream.phase")
+                        .description("Time spent in downstream call phases")
+                        .tag("phase", phase)
+                        .tag("route", route.id())
+                        .tag("service", route.service())
+                        // Sliding-window p95, read back by hedging
+                        .publishPercentiles(HEDGE_PERCENTILE)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Recent p95 of a downstream phase on {@code route} in nanoseconds, or 0 while
+     * there are too few samples to trust it.
+     */
+    public long downstreamP95Nanos(Route route, String phase) {
+        Timer timer = timers.get("downstream:" + phase + ":" + route.id());
+
+        if (timer == null || timer.count() < MIN_PERCENTILE_SAMPLES) {
+            return 0;
+        }
+
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == HEDGE_PERCENTILE) {
+                return (long) percentile.value(TimeUnit.NANOSECONDS);
+            }
+        }
+
+        return 0;
+    }
+
+    private Timer.Builder histogram(String name) {
+        return Timer.builder(name)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30));
+    }
+}
@@ -0,0 +1,280 @@
+package org.example.apigateway.metrics;
+
+import org.example.apigateway.config.DownstreamClients;
+import org.example.apigateway.config.DownstreamProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scrapes the Prometheus endpoint of every backend in parallel on a fixed schedule and
+ * keeps the merged result as one text exposition, served by {@link FederateEndpoint}.
+ * However many Prometheus or Grafana replicas poll the gateway, each backend is scraped
+ * once per interval.
+ *
+ * <p>Every sample gets a label naming its backend. Samples of the same metric from
+ * different backends are grouped under a single HELP/TYPE header, as the text format
+ * requires. Two synthetic families report each backend's scrape:
+ * {@code gateway_federation_up} and {@code gateway_federation_scrape_duration_seconds}.
+ * A backend that fails or times out contributes no samples until its next good scrape.
+ *
+ * <p>Scrapes run on a thread of their own rather than the shared {@code @Scheduled} pool,
+ * so a slow backend cannot hold up the revocation refresh or the rate-limit wheel.
+ */
+@Component
+@EnableConfigurationProperties(FederationProperties.class)
+@ConditionalOnProperty(prefix = "gateway.federation", name = "enabled", matchIfMissing = true)
+public class MetricsFederation implements InitializingBean, DisposableBean {
+    private static final String TEXT_FORMAT = "text/plain;version=0.0.4;charset=utf-8";
+    private static final Set<String> SERIES_SUFFIXES = Set.of("_bucket", "_sum", "_count", "_total", "_created");
+
+    private final Logger logger = LoggerFactory.getLogger(MetricsFederation.class);
+    private final DownstreamClients downstreamClients;
+    private final FederationProperties properties;
+    private final List<String> services;
+    // Scrapes only wait on I/O, so a virtual thread each is enough
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("metrics-federation").daemon().factory());
+    private volatile byte[] snapshot;
+
+    public MetricsFederation(DownstreamClients downstreamClients,
+                             DownstreamProperties downstreamProperties,
+                             FederationProperties properties) {
+        this.downstreamClients = downstreamClients;
+        this.properties = properties;
+        this.services = properties.getServices().isEmpty()
+                ? List.copyOf(downstreamProperties.getServices().keySet())
+                : List.copyOf(properties.getServices());
+    }
+
+    /**
+     * The last merged exposition, or {@code null} before the first scrape completed.
+     */
+    public byte[] snapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long interval = properties.getInterval().toNanos();
+
+        scheduler.scheduleAtFixedRate(this::scrapeSafely, 0, interval, TimeUnit.NANOSECONDS);
+    }
+
+    public void scrape() {
+        long start = System.nanoTime();
+        Map<String, Future<Map<String, Family>>> scrapes = new LinkedHashMap<>();
+
+        for (String service : services) {
+            scrapes.put(service, executor.submit(() -> scrape(service)));
+        }
+
+        Map<String, Family> merged = new LinkedHashMap<>();
+        Family up = new Family("gateway_federation_up", "Whether the last scrape of the backend succeeded", "gauge");
+        Family duration = new Family("gateway_federation_scrape_duration_seconds", "Duration of the last scrape of the backend", "gauge");
+
+        scrapes.forEach((service, future) -> {
+            boolean succeeded = false;
+
+            try {
+                long remaining = properties.getTimeout().toNanos() - (System.nanoTime() - start);
+
+                future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS).forEach((name, family) -> {
+                    Family target = merged.computeIfAbsent(name, key -> new Family(key, null, null));
+
+                    if (target.help == null) {
+                        target.help = family.help;
+                    }
+                    if (target.type == null) {
+                        target.type = family.type;
+                    }
+                    target.samples.addAll(family.samples);
+                });
+                succeeded = true;
+            } catch (TimeoutException e) {
+                // Interrupting the virtual thread aborts its blocking read and frees the connection
+                future.cancel(true);
+                logger.warn("Metrics scrape of {} timed out", service);
+            } catch (ExecutionException e) {
+                logger.warn("Metrics scrape of {} failed: {}", service, e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            String labels = "{" + properties.getLabel() + "=\"" + service + "\"}";
+            up.samples.add(up.name + labels + " " + (succeeded ? 1 : 0));
+            duration.samples.add(duration.name + labels + " " + (System.nanoTime() - start) / 1e9);
+        });
+
+        merged.put(up.name, up);
+        merged.put(duration.name, duration);
+        snapshot = render(merged);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    // An exception escaping a scheduled task would cancel every later run
+    private void scrapeSafely() {
+        try {
+            scrape();
+        } catch (RuntimeException e) {
+            logger.error("Metrics federation scrape failed: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, Family> scrape(String service) {
+        return downstreamClients.client(service, properties.getTimeout())
+                .get()
+                .uri(downstreamClients.url(service) + properties.getPath())
+                .header(HttpHeaders.ACCEPT, TEXT_FORMAT)
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw new RestClientException(service + " returned " + response.getStatusCode().value());
+                    }
+
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        return parse(reader, service);
+                    }
+                });
+    }
+
+    Map<String, Family> parse(BufferedReader reader, String service) throws IOException {
+        Map<String, Family> families = new LinkedHashMap<>();
+        String serviceLabel = properties.getLabel() + "=\"" + service + "\"";
+        Family current = null;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            if (line.startsWith("#")) {
+                String[] parts = line.split(" ", 4);
+
+                if (parts.length < 3 || !(parts[1].equals("HELP") || parts[1].equals("TYPE"))) {
+                    continue;
+                }
+
+                current = families.computeIfAbsent(parts[2], name -> new Family(name, null, null));
+                String text = parts.length == 4 ? parts[3] : "";
+
+                if (parts[1].equals("HELP")) {
+                    current.help = text;
+                } else {
+                    current.type = text;
+                }
+
+                continue;
+            }
+
+            int nameEnd = nameEnd(line);
+            String name = line.substring(0, nameEnd);
+
+            if (current == null || !belongsTo(name, current.name)) {
+                current = families.computeIfAbsent(name, key -> new Family(key, null, null));
+            }
+
+            current.samples.add(withLabel(line, nameEnd, serviceLabel));
+        }
+
+        return families;
+    }
+
+    // Histogram, summary and counter series share their family's header under these suffixes
+    private static boolean belongsTo(String name, String family) {
+        if (name.equals(family)) {
+            return true;
+        }
+        if (!name.startsWith(family)) {
+            return false;
+        }
+
+        return SERIES_SUFFIXES.contains(name.substring(family.length()));
+    }
+
+    private static int nameEnd(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (c == '{' || c == ' ') {
+                return i;
+            }
+        }
+
+        return line.length();
+    }
+
+    private static String withLabel(String line, int nameEnd, String label) {
+        if (nameEnd < line.length() && line.charAt(nameEnd) == '{') {
+            boolean empty = nameEnd + 1 < line.length() && line.charAt(nameEnd + 1) == '}';
+
+            return line.substring(0, nameEnd + 1) + label + (empty ? "" : ",") + line.substring(nameEnd + 1);
+        }
+
+        return line.substring(0, nameEnd) + "{" + label + "}" + line.substring(nameEnd);
+    }
+
+    static byte[] render(Map<String, Family> families) {
+        StringBuilder out = new StringBuilder(64 * 1024);
+
+        for (Family family : families.values()) {
+            if (family.samples.isEmpty()) {
+                continue;
+            }
+            if (family.help != null) {
+                out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            }
+            if (family.type != null) {
+                out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            }
+            for (String sample : family.samples) {
+                out.append(sample).append('\n');
+            }
+        }
+
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static final class Family {
+        private final String name;
+        private String help;
+        private String type;
+        private final List<String> samples = new ArrayList<>();
+
+        private Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
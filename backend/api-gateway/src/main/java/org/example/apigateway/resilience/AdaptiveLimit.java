@@ -0,0 +1,114 @@
+package org.example.apigateway.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gradient concurrency limit. The limit follows the ratio between a long-term latency
+ * baseline and the recent latency: while recent latency stays within the tolerance of
+ * the baseline the limit grows by a small queue allowance, and once the backend slows
+ * down the limit shrinks in proportion. Failures (timeouts, refused connections) cut
+ * the limit multiplicatively.
+ */
+class AdaptiveLimit {
+    private final ConcurrencyLimitProperties.Limit config;
+    private final AtomicInteger inflight = new AtomicInteger();
+    // Samples that arrive while another thread is updating are skipped, not queued
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private volatile int limit;
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+
+    AdaptiveLimit(ConcurrencyLimitProperties.Limit config) {
+        this.config = config;
+        this.limit = config.getInitialLimit();
+        this.estimatedLimit = config.getInitialLimit();
+    }
+
+    boolean tryAcquire() {
+        int current;
+
+        do {
+            current = inflight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inflight.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    void onSuccess(long rttNanos) {
+        int inflightAtCompletion = inflight.getAndDecrement();
+
+        if (!updateLock.tryLock()) {
+            return;
+        }
+
+        try {
+            update(rttNanos, inflightAtCompletion);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    void onDropped() {
+        inflight.decrementAndGet();
+        updateLock.lock();
+
+        try {
+            estimatedLimit = clamp(estimatedLimit * config.getBackoffRatio());
+            limit = (int) estimatedLimit;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    void onIgnored() {
+        inflight.decrementAndGet();
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inflight() {
+        return inflight.get();
+    }
+
+    private void update(long rttNanos, int inflightAtCompletion) {
+        double rtt = rttNanos;
+
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+
+            return;
+        }
+
+        shortRtt += (rtt - shortRtt) / config.getShortWindow();
+        longRtt += (rtt - longRtt) / config.getLongWindow();
+
+        // After a sustained slowdown the baseline drifts up; pull it back once latency recovers
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        // Don't grow a limit that traffic isn't using
+        if (inflightAtCompletion < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, config.getRttTolerance() * longRtt / shortRtt));
+        double queueAllowance = Math.sqrt(estimatedLimit);
+        double target = estimatedLimit * gradient + queueAllowance;
+
+        estimatedLimit = clamp(estimatedLimit * (1 - config.getSmoothing()) + target * config.getSmoothing());
+        limit = (int) estimatedLimit;
+    }
+
+    private double clamp(double value) {
+        return Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), value));
+    }
+}
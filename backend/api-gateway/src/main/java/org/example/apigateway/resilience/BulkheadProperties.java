@@ -0,0 +1,28 @@
+package org.example.apigateway.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.bulkhead")
+public class BulkheadProperties {
+    private boolean enabled = true;
+    private Limits defaults = new Limits();
+    // Backend name under gateway.downstream.services to limits shared by its routes
+    private Map<String, Limits> services = new HashMap<>();
+    // Route id to limits; such a route gets a bulkhead of its own instead of its backend's
+    private Map<String, Limits> routes = new HashMap<>();
+
+    @Data
+    public static class Limits {
+        private int maxConcurrentCalls = 50;
+        // How long a call may wait for a free slot
+        private Duration maxWait = Duration.ofMillis(100);
+        // Calls allowed to wait at once; beyond this they are rejected without waiting
+        private int maxQueueDepth = 20;
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.apigateway.resilience;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.apigateway.config.exceptions.ServiceOverloadedException;
+import org.example.apigateway.routing.Route;
+import org.example.apigateway.routing.RouteRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resilience4j semaphore bulkheads around downstream calls, one per backend by default
+ * so a slow backend can only tie up its own share of request threads. A route listed
+ * under {@code gateway.bulkhead.routes} gets a bulkhead of its own. Waiting for a slot
+ * is bounded both in time and in how many callers may wait at once.
+ *
+ * <p>Resilience4j publishes the available/max concurrent calls per bulkhead; rejections
+ * are counted here as {@code gateway.bulkhead.rejected{bulkhead,reason=full|queue}}.
+ */
+@Component
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class Bulkheads {
+    private static final Permit NOOP = () -> {
+    };
+
+    private final BulkheadProperties properties;
+    private final Map<String, Compartment> byRoute = new HashMap<>();
+
+    public Bulkheads(BulkheadProperties properties,
+                     BulkheadRegistry bulkheadRegistry,
+                     RouteRegistry routeRegistry,
+                     MeterRegistry registry) {
+        this.properties = properties;
+        Map<String, Compartment> byName = new HashMap<>();
+
+        for (Route route : routeRegistry.routes()) {
+            boolean own = properties.getRoutes().containsKey(route.id());
+            String name = own ? "route-" + route.id() : route.service();
+            BulkheadProperties.Limits limits = own
+                    ? properties.getRoutes().get(route.id())
+                    : properties.getServices().getOrDefault(route.service(), properties.getDefaults());
+
+            byRoute.put(route.id(), byName.computeIfAbsent(name, key -> createCompartment(key, limits, bulkheadRegistry, registry)));
+        }
+    }
+
+    /**
+     * Takes a slot in the route's bulkhead, waiting up to its max-wait, or throws
+     * {@link ServiceOverloadedException}. Close the permit when the call is done.
+     */
+    public Permit acquire(Route route) {
+        Compartment compartment = byRoute.get(route.id());
+
+        if (!properties.isEnabled() || compartment == null) {
+            return NOOP;
+        }
+
+        return compartment.acquire();
+    }
+
+    private Compartment createCompartment(String name,
+                                          BulkheadProperties.Limits limits,
+                                          BulkheadRegistry bulkheadRegistry,
+                                          MeterRegistry registry) {
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(name, BulkheadConfig.custom()
+                .maxConcurrentCalls(limits.getMaxConcurrentCalls())
+                .maxWaitDuration(limits.getMaxWait())
+                .build());
+        Compartment compartment = new Compartment(
+                bulkhead,
+                limits,
+                rejectedCounter(registry, name, "full"),
+                rejectedCounter(registry, name, "queue")
+        );
+
+        Gauge.builder("gateway.bulkhead.queue.depth", compartment.waiting, AtomicInteger::get)
+                .description("Calls currently waiting for a bulkhead slot")
+                .tag("bulkhead", name)
+                .register(registry);
+
+        return compartment;
+    }
+
+    private Counter rejectedCounter(MeterRegistry registry, String name, String reason) {
+        return Counter.builder("gateway.bulkhead.rejected")
+                .description("Downstream calls rejected by a bulkhead")
+                .tag("bulkhead", name)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private record Compartment(Bulkhead bulkhead,
+                               BulkheadProperties.Limits limits,
+                               Counter rejectedFull,
+                               Counter rejectedQueue,
+                               AtomicInteger waiting) {
+        Compartment(Bulkhead bulkhead, BulkheadProperties.Limits limits, Counter rejectedFull, Counter rejectedQueue) {
+            this(bulkhead, limits, rejectedFull, rejectedQueue, new AtomicInteger());
+        }
+
+        Permit acquire() {
+            // Counts every caller inside acquisition, including those that get a slot at once
+            if (waiting.incrementAndGet() > limits.getMaxQueueDepth() + bulkhead.getMetrics().getAvailableConcurrentCalls()) {
+                waiting.decrementAndGet();
+                rejectedQueue.increment();
+
+                throw overloaded();
+            }
+
+            boolean acquired;
+            try {
+                acquired = bulkhead.tryAcquirePermission();
+            } finally {
+                waiting.decrementAndGet();
+            }
+
+            if (!acquired) {
+                rejectedFull.increment();
+
+                throw overloaded();
+            }
+
+            return bulkhead::onComplete;
+        }
+
+        private ServiceOverloadedException overloaded() {
+            Duration retryAfter = limits.getMaxWait().compareTo(Duration.ofSeconds(1)) > 0
+                    ? limits.getMaxWait()
+                    : Duration.ofSeconds(1);
+
+            return new ServiceOverloadedException("Service " + bulkhead.getName() + " is at capacity, retry later", retryAfter);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.apigateway.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.concurrency")
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+    // Retry-After sent with shed requests
+    private Duration retryAfter = Duration.ofSeconds(1);
+    private Limit defaults = new Limit();
+    // Route id to overrides; fields left unset come from the defaults
+    private Map<String, LimitOverride> routes = new HashMap<>();
+
+    public Limit limitFor(String routeId) {
+        LimitOverride override = routes.get(routeId);
+
+        return override == null ? defaults : override.applyTo(defaults);
+    }
+
+    @Data
+    public static class Limit {
+        private int initialLimit = 20;
+        private int minLimit = 5;
+        private int maxLimit = 200;
+        // Latency may grow this much over the long-term baseline before the limit shrinks
+        private double rttTolerance = 1.5;
+        // Weight of each new estimate when moving the limit
+        private double smoothing = 0.2;
+        // Samples averaged into the long-term (baseline) latency
+        private int longWindow = 600;
+        // Samples averaged into the short-term latency
+        private int shortWindow = 10;
+        // Multiplier applied to the limit when a call times out or fails to connect
+        private double backoffRatio = 0.9;
+    }
+
+    /**
+     * Same fields as {@link Limit}, null when not set for the route.
+     */
+    @Data
+    public static class LimitOverride {
+        private Integer initialLimit;
+        private Integer minLimit;
+        private Integer maxLimit;
+        private Double rttTolerance;
+        private Double smoothing;
+        private Integer longWindow;
+        private Integer shortWindow;
+        private Double backoffRatio;
+
+        Limit applyTo(Limit defaults) {
+            Limit limit = new Limit();
+            limit.setInitialLimit(initialLimit != null ? initialLimit : defaults.getInitialLimit());
+            limit.setMinLimit(minLimit != null ? minLimit : defaults.getMinLimit());
+            limit.setMaxLimit(maxLimit != null ? maxLimit : defaults.getMaxLimit());
+            limit.setRttTolerance(rttTolerance != null ? rttTolerance : defaults.getRttTolerance());
+            limit.setSmoothing(smoothing != null ? smoothing : defaults.getSmoothing());
+            limit.setLongWindow(longWindow != null ? longWindow : defaults.getLongWindow());
+            limit.setShortWindow(shortWindow != null ? shortWindow : defaults.getShortWindow());
+            limit.setBackoffRatio(backoffRatio != null ? backoffRatio : defaults.getBackoffRatio());
+
+            return limit;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.apigateway.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.apigateway.config.exceptions.ServiceOverloadedException;
+import org.example.apigateway.routing.Route;
+import org.example.apigateway.routing.RouteRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-route adaptive concurrency limits. Requests over a route's current limit are
+ * shed immediately with 503 instead of queuing on Tomcat threads behind a slow
+ * backend.
+ */
+@Component
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimiter {
+    private final ConcurrencyLimitProperties properties;
+    private final Map<String, RouteLimit> limits = new HashMap<>();
+
+    public ConcurrencyLimiter(ConcurrencyLimitProperties properties,
+                              RouteRegistry routeRegistry,
+                              MeterRegistry registry) {
+        this.properties = properties;
+
+        for (Route route : routeRegistry.routes()) {
+            AdaptiveLimit limit = new AdaptiveLimit(properties.limitFor(route.id()));
+
+            Gauge.builder("gateway.concurrency.limit", limit, AdaptiveLimit::limit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("route", route.id())
+                    .register(registry);
+            Gauge.builder("gateway.concurrency.inflight", limit, AdaptiveLimit::inflight)
+                    .description("Requests currently in flight")
+                    .tag("route", route.id())
+                    .register(registry);
+            Counter rejected = Counter.builder("gateway.concurrency.rejected")
+                    .description("Requests shed because the route was at its concurrency limit")
+                    .tag("route", route.id())
+                    .register(registry);
+
+            limits.put(route.id(), new RouteLimit(limit, rejected));
+        }
+    }
+
+    /**
+     * Takes a slot on {@code route} or throws {@link ServiceOverloadedException}. The
+     * returned permit must be completed exactly once.
+     */
+    public Permit acquire(Route route) {
+        RouteLimit routeLimit = limits.get(route.id());
+
+        if (!properties.isEnabled() || routeLimit == null) {
+            return Permit.NOOP;
+        }
+
+        if (!routeLimit.limit().tryAcquire()) {
+            routeLimit.rejected().increment();
+
+            throw new ServiceOverloadedException(
+                    "Service temporarily overloaded, retry later",
+                    properties.getRetryAfter()
+            );
+        }
+
+        return new Permit(routeLimit.limit(), System.nanoTime());
+    }
+
+    private record RouteLimit(AdaptiveLimit limit, Counter rejected) {
+    }
+
+    public static class Permit {
+        static final Permit NOOP = new Permit(null, 0);
+
+        private final AdaptiveLimit limit;
+        private volatile long startNanos;
+        private volatile long responseNanos;
+
+        private Permit(AdaptiveLimit limit, long startNanos) {
+            this.limit = limit;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * The request body has been handed to the backend. Time spent before this, e.g.
+         * reading a slow client's upload, is left out of the latency sample.
+         */
+        public void requestSent() {
+            if (limit != null) {
+                startNanos = System.nanoTime();
+                responseNanos = 0;
+            }
+        }
+
+        /**
+         * The backend's response has arrived. Time spent after this, e.g. relaying the body
+         * to a slow client, is left out of the latency sample.
+         */
+        public void responseReceived() {
+            if (limit != null) {
+                responseNanos = System.nanoTime();
+            }
+        }
+
+        /** The backend answered; its latency feeds the limit. */
+        public void success() {
+            if (limit != null) {
+                long endNanos = responseNanos != 0 ? responseNanos : System.nanoTime();
+                limit.onSuccess(endNanos - startNanos);
+            }
+        }
+
+        /** The call timed out or could not connect. */
+        public void dropped() {
+            if (limit != null) {
+                limit.onDropped();
+            }
+        }
+
+        /** The call never reached the backend (e.g. rejected by a bulkhead); say nothing about latency. */
+        public void ignored() {
+            if (limit != null) {
+                limit.onIgnored();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.apigateway.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gateway-wide budget shared by route retries and hedged requests. Every original
+ * request deposits {@code ratio} of a token and every extra attempt withdraws a whole
+ * one, so extra attempts can never exceed that fraction of real traffic. A small
+ * per-second allowance keeps retries possible at low traffic. When a backend is down
+ * the budget drains and the gateway stops multiplying load on it.
+ */
+@Component
+public class RetryBudget {
+    // Balances are kept in thousandths of a token
+    private static final long SCALE = 1000;
+    private static final long MIN_REFILL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicLong balance;
+    private final AtomicLong lastRefillNanos = new AtomicLong(System.nanoTime());
+    private final long depositPerRequest;
+    private final long refillPerSecond;
+    private final long maxBalance;
+    private final Counter granted;
+    private final Counter exhausted;
+
+    public RetryBudget(@Value("${gateway.retry-budget.ratio:0.1}") double ratio,
+                       @Value("${gateway.retry-budget.min-per-second:5}") int minPerSecond,
+                       @Value("${gateway.retry-budget.max-tokens:100}") int maxTokens,
+                       MeterRegistry registry) {
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.refillPerSecond = minPerSecond * SCALE;
+        this.maxBalance = maxTokens * SCALE;
+        this.balance = new AtomicLong(maxBalance);
+        this.granted = Counter.builder("gateway.retry.budget")
+                .description("Extra attempts (retries and hedges) by budget outcome")
+                .tag("outcome", "granted")
+                .register(registry);
+        this.exhausted = Counter.builder("gateway.retry.budget")
+                .description("Extra attempts (retries and hedges) by budget outcome")
+                .tag("outcome", "exhausted")
+                .register(registry);
+
+        Gauge.builder("gateway.retry.budget.tokens", balance, value -> (double) value.get() / SCALE)
+                .description("Extra attempts currently affordable")
+                .register(registry);
+    }
+
+    public void recordRequest() {
+        add(depositPerRequest);
+    }
+
+    public boolean tryAcquire() {
+        refill();
+
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                exhausted.increment();
+
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+
+        granted.increment();
+
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long last = lastRefillNanos.get();
+        long elapsed = now - last;
+
+        if (elapsed >= MIN_REFILL_INTERVAL_NANOS && lastRefillNanos.compareAndSet(last, now)) {
+            add(elapsed * refillPerSecond / TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private void add(long amount) {
+        balance.accumulateAndGet(amount, (current, delta) -> Math.min(maxBalance, current + delta));
+    }
+}
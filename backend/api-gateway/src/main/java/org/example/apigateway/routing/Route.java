@@ -0,0 +1,72 @@
+package org.example.apigateway.routing;
+
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+public record Route(
+        String id,
+        String prefix,
+        String service,
+        boolean stripPrefix,
+        Duration timeout,
+        boolean authRequired,
+        boolean captureTokens,
+        int maxAttempts,
+        Duration retryBackoff,
+        boolean coalesce,
+        Duration coalesceMaxWait,
+        // Null when responses on this route are not cached
+        Duration cacheTtl,
+        List<String> invalidates,
+        boolean hedge,
+        Duration hedgeMinDelay
+) {
+    private static final Set<HttpMethod> RETRYABLE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    static Route from(RouteProperties.Definition definition) {
+        return new Route(
+                definition.getId(),
+                normalize(definition.getPrefix()),
+                definition.getService(),
+                definition.isStripPrefix(),
+                definition.getTimeout(),
+                definition.isAuthRequired(),
+                definition.isCaptureTokens(),
+                Math.max(1, definition.getRetry().getMaxAttempts()),
+                definition.getRetry().getBackoff(),
+                definition.getCoalesce().isEnabled(),
+                definition.getCoalesce().getMaxWait(),
+                definition.getCache().isEnabled() ? definition.getCache().getTtl() : null,
+                List.copyOf(definition.getInvalidates()),
+                definition.getHedge().isEnabled(),
+                definition.getHedge().getMinDelay()
+        );
+    }
+
+    public String downstreamPath(String requestPath) {
+        if (stripPrefix && requestPath.startsWith(prefix)) {
+            return requestPath.substring(prefix.length());
+        }
+
+        return requestPath;
+    }
+
+    public boolean isCached() {
+        return cacheTtl != null;
+    }
+
+    public boolean canRetry(HttpMethod method, int attemptsMade) {
+        return attemptsMade < maxAttempts && RETRYABLE_METHODS.contains(method);
+    }
+
+    private static String normalize(String prefix) {
+        if (prefix.length() > 1 && prefix.endsWith("/")) {
+            return prefix.substring(0, prefix.length() - 1);
+        }
+
+        return prefix;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.apigateway.routing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.routing")
+public class RouteProperties {
+    private List<Definition> routes = new ArrayList<>();
+
+    @Data
+    public static class Definition {
+        private String id;
+        // Path prefix matched on whole segments, e.g. /api/v1/users
+        private String prefix;
+        // Name of a backend under gateway.downstream.services
+        private String service;
+        // Strip the matched prefix before forwarding (used by the actuator proxies)
+        private boolean stripPrefix = false;
+        // Per-route read timeout, falls back to the service default when unset
+        private Duration timeout;
+        private boolean authRequired = true;
+        // Lift access/refresh tokens out of the response body into cookies
+        private boolean captureTokens = false;
+        private Retry retry = new Retry();
+        private Coalesce coalesce = new Coalesce();
+        private Cache cache = new Cache();
+        private Hedge hedge = new Hedge();
+        // Route ids whose cached responses a mutation on this route makes stale (in addition to its own)
+        private List<String> invalidates = new ArrayList<>();
+    }
+
+    @Data
+    public static class Retry {
+        private int maxAttempts = 1;
+        private Duration backoff = Duration.ofMillis(50);
+    }
+
+    @Data
+    public static class Coalesce {
+        // Share one downstream call between concurrent identical GETs from the same user
+        private boolean enabled = false;
+        // How long a duplicate waits for the shared call before making its own
+        private Duration maxWait = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Hedge {
+        // Send a second GET when the first is slower than the route's recent p95
+        private boolean enabled = false;
+        // Never hedge sooner than this, whatever the p95
+        private Duration minDelay = Duration.ofMillis(20);
+    }
+
+    @Data
+    public static class Cache {
+        // Cache successful GET responses per user at the gateway. Only for data that changes
+        // through the same user's requests on this gateway, never e.g. account balances
+        private boolean enabled = false;
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.apigateway.routing;
+
+import org.example.apigateway.config.DownstreamClients;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+@EnableConfigurationProperties(RouteProperties.class)
+public class RouteRegistry {
+    private final List<Route> routes;
+    private final Map<String, Route> routesById;
+    private final RouteTrie trie = new RouteTrie();
+
+    public RouteRegistry(RouteProperties properties, DownstreamClients downstreamClients) {
+        this.routes = properties.getRoutes().stream()
+                .map(Route::from)
+                .toList();
+        this.routesById = routes.stream()
+                .collect(Collectors.toUnmodifiableMap(Route::id, route -> route));
+
+        for (Route route : routes) {
+            // Fail at startup rather than on the first request for a misconfigured route
+            downstreamClients.url(route.service());
+            trie.add(route);
+        }
+    }
+
+    public Optional<Route> match(String path) {
+        return Optional.ofNullable(trie.match(path));
+    }
+
+    public Optional<Route> route(String id) {
+        return Optional.ofNullable(routesById.get(id));
+    }
+
+    public List<Route> routes() {
+        return routes;
+    }
+
+    /**
+     * Ant patterns for every route that does not require an authenticated user.
+     */
+    public String[] publicPathPatterns() {
+        return routes.stream()
+                .filter(route -> !route.authRequired())
+                .flatMap(route -> Stream.of(route.prefix(), route.prefix() + "/**"))
+                .toArray(String[]::new);
+    }
+}
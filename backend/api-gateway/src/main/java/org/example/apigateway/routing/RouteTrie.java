@@ -0,0 +1,66 @@
+package org.example.apigateway.routing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prefix trie over path segments. Matching walks the request path once and returns
+ * the route with the longest matching prefix, so {@code /api/v1/users} matches
+ * {@code /api/v1/users/42} but never {@code /api/v1/usersettings}.
+ */
+class RouteTrie {
+    private final Node root = new Node();
+
+    void add(Route route) {
+        Node node = root;
+
+        for (String segment : route.prefix().split("/")) {
+            if (!segment.isEmpty()) {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+
+        if (node.route != null) {
+            throw new IllegalStateException("Duplicate route prefix " + route.prefix()
+                    + " for routes " + node.route.id() + " and " + route.id());
+        }
+
+        node.route = route;
+    }
+
+    Route match(String path) {
+        Node node = root;
+        Route best = root.route;
+        int start = 0;
+        int length = path.length();
+
+        while (start < length) {
+            if (path.charAt(start) == '/') {
+                start++;
+                continue;
+            }
+
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            node = node.children.get(path.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            if (node.route != null) {
+                best = node.route;
+            }
+
+            start = end;
+        }
+
+        return best;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Route route;
+    }
+}
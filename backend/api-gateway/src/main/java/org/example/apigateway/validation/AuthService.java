@@ -18,17 +18,36 @@ public class AuthService {
     private final Logger logger = LoggerFactory.getLogger(AuthService.class);
     private final String INTERNAL_SERVICE_SECRET;
     private final String BASE_AUTH_SERVICE_URL;
+    private final TokenVerifier tokenVerifier;
+    private final boolean localVerification;
 
     public AuthService(@Qualifier("downstreamRestClient") RestClient restClient,
                        @Value("${INTERNAL_SERVICE_SECRET}") String internalServiceSecret,
-                       @Value("${BASE_AUTH_SERVICE_URL}") String baseAuthServiceUrl) {
+                       @Value("${BASE_AUTH_SERVICE_URL}") String baseAuthServiceUrl,
+                       @Value("${gateway.auth.local-verification:true}") boolean localVerification,
+                       TokenVerifier tokenVerifier) {
         this.restClient = restClient;
         this.INTERNAL_SERVICE_SECRET = internalServiceSecret;
         this.BASE_AUTH_SERVICE_URL = baseAuthServiceUrl;
+        this.localVerification = localVerification;
+        this.tokenVerifier = tokenVerifier;
+    }
+
+    /**
+     * Resolves the user behind an access token. Signatures and expiry are checked
+     * in-process unless local verification is switched off, in which case every
+     * call goes to auth-service's {@code /validate} endpoint.
+     */
+    public VerifiedToken authenticate(String token) {
+        if (localVerification) {
+            return tokenVerifier.verify(token);
+        }
+
+        return validateTokenWithAuthService(token);
     }
 
     @CircuitBreaker(name = "authService", fallbackMethod = "fallback")
-    public User validateTokenWithAuthService(String token) {
+    public VerifiedToken validateTokenWithAuthService(String token) {
         try {
             UserTokenInfoDTO tokenInfo = restClient
                     .post()
@@ -46,8 +65,13 @@ public class AuthService {
             user.setId(tokenInfo.id());
             user.setEmail(tokenInfo.email());
             user.setRoles(tokenInfo.roles());
-            
-            return user;
+
+            return new VerifiedToken(
+                    user,
+                    tokenInfo.expiresAt() == null ? 0 : tokenInfo.expiresAt().toEpochMilli(),
+                    tokenInfo.tokenId(),
+                    tokenInfo.version()
+            );
         } catch (org.springframework.web.client.HttpClientErrorException ex) {
             logger.error("Auth service returned client error: {} - {}", ex.getStatusCode(), ex.getResponseBodyAsString());
 
@@ -71,7 +95,7 @@ public class AuthService {
         }
     }
 
-    private User fallback(String token, Exception ex) {
+    private VerifiedToken fallback(String token, Exception ex) {
         logger.error("Fallback error: {}", ex.getMessage());
 
         throw new AuthenticationServiceUnavailable("Authentication service is currently unavailable");
@@ -1,24 +1,37 @@
 package org.example.apigateway.validation;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
-import org.example.apigateway.config.HeaderMapRequestWrapper;
+import org.example.apigateway.config.DownstreamClients;
+import org.example.apigateway.config.OutboundHeaders;
+import org.example.apigateway.config.exceptions.AuthenticationServiceUnavailable;
+import org.example.apigateway.config.exceptions.ServiceOverloadedException;
 import org.example.apigateway.layers.GatewayService;
+import org.example.apigateway.metrics.GatewayMetrics;
+import org.example.apigateway.resilience.Bulkheads;
+import org.example.apigateway.resilience.ConcurrencyLimiter;
+import org.example.apigateway.routing.Route;
+import org.example.apigateway.routing.RouteRegistry;
 import org.example.apigateway.users.User;
+import org.example.apigateway.validation.records.AuthResponseDTO;
 import org.example.apigateway.validation.records.UserDTO;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClient;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,25 +41,48 @@ import java.util.stream.Collectors;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
-    private final RestClient restClient;
+    private final DownstreamClients downstreamClients;
+    private final RouteRegistry routeRegistry;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final Bulkheads bulkheads;
+    private final GatewayMetrics metrics;
+    // Readers and writers are immutable and thread-safe; build them once
+    private final ObjectReader userReader;
+    private final ObjectWriter authResponseWriter;
     private final AuthService authService;
+    private final ValidatedTokenCache tokenCache;
     private final Logger logger = LoggerFactory.getLogger(JwtAuthFilter.class);
     private final GatewayService gatewayService;
     @Value("${ACCESS_TOKEN_TTL}")
     private Duration ACCESS_TOKEN_TTL;
     @Value("${REFRESH_TOKEN_TTL}")
     private Duration REFRESH_TOKEN_TTL;
-    @Value("${BASE_AUTH_SERVICE_URL}")
-    private String BASE_AUTH_SERVICE_URL;
-    @Value("${INTERNAL_SERVICE_SECRET}")
-    private String INTERNAL_SERVICE_SECRET;
-
-    public JwtAuthFilter(@Qualifier("downstreamRestClient") RestClient restClient,
+    private final String INTERNAL_SERVICE_SECRET;
+    // Same for every unauthenticated request, so shared
+    private final OutboundHeaders internalHeaders;
+
+    public JwtAuthFilter(DownstreamClients downstreamClients,
+                         RouteRegistry routeRegistry,
+                         ConcurrencyLimiter concurrencyLimiter,
+                         Bulkheads bulkheads,
+                         GatewayMetrics metrics,
+                         ObjectMapper objectMapper,
                          AuthService authService,
-                         GatewayService gatewayService) {
-        this.restClient = restClient;
+                         ValidatedTokenCache tokenCache,
+                         GatewayService gatewayService,
+                         @Value("${INTERNAL_SERVICE_SECRET}") String INTERNAL_SERVICE_SECRET) {
+        this.downstreamClients = downstreamClients;
+        this.routeRegistry = routeRegistry;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.bulkheads = bulkheads;
+        this.metrics = metrics;
+        this.userReader = objectMapper.readerFor(UserDTO.class);
+        this.authResponseWriter = objectMapper.writerFor(AuthResponseDTO.class);
         this.authService = authService;
+        this.tokenCache = tokenCache;
         this.gatewayService = gatewayService;
+        this.INTERNAL_SERVICE_SECRET = INTERNAL_SERVICE_SECRET;
+        this.internalHeaders = OutboundHeaders.internal(INTERNAL_SERVICE_SECRET);
     }
 
     @Override
@@ -56,19 +92,17 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain) throws ServletException, IOException {
 
         String requestURI = request.getRequestURI();
-        HeaderMapRequestWrapper wrapper = new HeaderMapRequestWrapper(request);
-        wrapper.addHeader("X-Internal-Request", INTERNAL_SERVICE_SECRET);
+        internalHeaders.attachTo(request);
 
         if (isAuthEndpoint(requestURI)) {
-            ContentCachingRequestWrapper cachedRequest = new ContentCachingRequestWrapper(request);
-            handleAuthEndpoint(cachedRequest, response, requestURI);
+            handleAuthEndpoint(request, response, requestURI);
 
             return;
         }
 
         if (isActuatorEndpoint(requestURI)) {
             logger.warn("Endpoint {} is actuator", requestURI);
-            filterChain.doFilter(wrapper, response);
+            filterChain.doFilter(request, response);
 
             return;
         }
@@ -90,7 +124,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         final String token = getAuthTokenFromCookie(cookies);
 
         try {
-            User user = authService.validateTokenWithAuthService(token);
+            long start = System.nanoTime();
+            User user = tokenCache.get(token, authService::authenticate);
+            metrics.recordPhase(
+                    GatewayMetrics.PHASE_AUTH,
+                    routeRegistry.match(requestURI).map(Route::id).orElse("default"),
+                    System.nanoTime() - start
+            );
 
             if (user == null) {
                 logger.warn("Invalid token");
@@ -100,8 +140,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             }
 
             setSecurityContext(user);
-            HeaderMapRequestWrapper wrappedRequest = setCustomHeaders(wrapper, user);
-            filterChain.doFilter(wrappedRequest, response);
+            attachUserHeaders(request, user);
+            filterChain.doFilter(request, response);
         } catch (Exception e) {
             internalError(response, e);
         }
@@ -126,101 +166,126 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         return null;
     }
 
-    private void handleAuthEndpoint(ContentCachingRequestWrapper request,
+    /**
+     * Forwards login/registration to auth-service. The request body is streamed straight
+     * to the auth-service connection and the reply is parsed from the response stream,
+     * so neither is held as a String; payloads are never logged. Calls are admitted
+     * through the auth route's concurrency limit and bulkhead, so a login storm is shed
+     * with 503 instead of occupying every request thread.
+     */
+    private void handleAuthEndpoint(HttpServletRequest request,
                                     HttpServletResponse response,
                                     String requestURI) throws IOException {
+        String authPath = requestURI.contains("/login") ?
+                "/api/v1/auth/login" : "/api/v1/auth/registration";
+        Route route = routeRegistry.match(requestURI)
+                .orElseThrow(() -> new IllegalStateException("No route for " + requestURI));
+        ConcurrencyLimiter.Permit permit;
+
         try {
-            String requestBody = new String(request.getContentAsByteArray());
-            if (requestBody.isEmpty()) {
-                requestBody = request.getReader().lines()
-                        .collect(Collectors.joining(System.lineSeparator()));
-            }
-            
-            String authPath = requestURI.contains("/login") ?
-                    "/api/v1/auth/login" : "/api/v1/auth/registration";
-
-            logger.info("Forwarding to: " + BASE_AUTH_SERVICE_URL + authPath);
-            logger.info("Request body: " + requestBody);
-
-            try {
-                UserDTO authResponse = restClient
-                        .post()
-                        .uri(BASE_AUTH_SERVICE_URL + authPath)
-                        .header("Content-Type", "application/json")
-                        .header("X-Internal-Request", INTERNAL_SERVICE_SECRET)
-                        .body(requestBody)
-                        .retrieve()
-                        .body(UserDTO.class);
-
-                logger.info("Response body: " + authResponse);
-
-                if (authResponse != null && authResponse.id() != null) {
-                    User user = new User();
-
-                    user.setId(authResponse.id());
-                    user.setName(authResponse.name());
-                    user.setEmail(authResponse.email());
-                    user.setRoles(authResponse.roles());
-
-                    setSecurityContext(user);
-
-                    response.setStatus(HttpServletResponse.SC_OK);
-                    response.setContentType("application/json");
-
-                    String responseBody = String.format("""
-                            {
-                                "user": {
-                                    "id": "%s",
-                                    "email": "%s",
-                                    "roles": [%s]
-                                }
+            permit = concurrencyLimiter.acquire(route);
+        } catch (ServiceOverloadedException e) {
+            overloadedResponse(response, e);
+
+            return;
+        }
+
+        boolean released = false;
+
+        try (Bulkheads.Permit ignored = bulkheads.acquire(route)) {
+            downstreamClients.client(route.service())
+                    .post()
+                    .uri(downstreamClients.url(route.service()) + authPath)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("X-Internal-Request", INTERNAL_SERVICE_SECRET)
+                    .body(outputStream -> StreamUtils.copy(request.getInputStream(), outputStream))
+                    .exchange((clientRequest, clientResponse) -> {
+                        HttpStatusCode status = clientResponse.getStatusCode();
+
+                        if (status.is4xxClientError()) {
+                            logger.warn("Auth service rejected {}: {}", authPath, status);
+                            response.setStatus(status.value());
+                            response.setContentType("application/json");
+
+                            try (InputStream body = clientResponse.getBody()) {
+                                StreamUtils.copy(body, response.getOutputStream());
                             }
-                            """,
-                            authResponse.id(),
-                            authResponse.email(),
-                            authResponse.roles().stream()
-                                    .map(role -> "\"" + role + "\"")
-                                    .collect(Collectors.joining(", "))
-                    );
-
-                    Cookie refreshTokenCookie = gatewayService.createCookie(
-                            "refresh_token",
-                            authResponse.refreshToken(),
-                            (int) REFRESH_TOKEN_TTL.toSeconds(),
-                            true,
-                            "/",
-                            true
-                    );
-                    Cookie accessTokenCookie = gatewayService.createCookie(
-                            "access_token",
-                            authResponse.accessToken(),
-                            (int) ACCESS_TOKEN_TTL.toSeconds(),
-                            true,
-                            "/",
-                            true
-                    );
-
-                    response.addCookie(refreshTokenCookie);
-                    response.addCookie(accessTokenCookie);
-
-                    response.getWriter().write(responseBody);
-                    response.getWriter().flush();
-                } else {
-                    unauthorizedResponse(response);
-                }
-            } catch (org.springframework.web.client.HttpClientErrorException e) {
-                logger.error("Auth service returned client error: " + e.getStatusCode() + " - " + e.getResponseBodyAsString());
-                response.setStatus(e.getStatusCode().value());
-                response.setContentType("application/json");
-                response.getWriter().write(e.getResponseBodyAsString());
-                response.getWriter().flush();
-            }
 
+                            return null;
+                        }
+
+                        if (status.isError()) {
+                            throw new AuthenticationServiceUnavailable("Auth service returned " + status.value());
+                        }
+
+                        UserDTO authResponse;
+                        try (InputStream body = clientResponse.getBody()) {
+                            authResponse = userReader.readValue(body);
+                        }
+
+                        writeAuthenticated(authResponse, response);
+
+                        return null;
+                    });
+        } catch (ResourceAccessException e) {
+            released = true;
+            permit.dropped();
+            internalError(response, e);
+        } catch (ServiceOverloadedException e) {
+            released = true;
+            permit.ignored();
+            overloadedResponse(response, e);
         } catch (Exception e) {
             internalError(response, e);
+        } finally {
+            if (!released) {
+                permit.success();
+            }
         }
     }
 
+    private void writeAuthenticated(UserDTO authResponse, HttpServletResponse response) throws IOException {
+        if (authResponse == null || authResponse.id() == null) {
+            unauthorizedResponse(response);
+
+            return;
+        }
+
+        User user = new User();
+        user.setId(authResponse.id());
+        user.setName(authResponse.name());
+        user.setEmail(authResponse.email());
+        user.setRoles(authResponse.roles());
+
+        setSecurityContext(user);
+
+        Cookie refreshTokenCookie = gatewayService.createCookie(
+                "refresh_token",
+                authResponse.refreshToken(),
+                (int) REFRESH_TOKEN_TTL.toSeconds(),
+                true,
+                "/",
+                true
+        );
+        Cookie accessTokenCookie = gatewayService.createCookie(
+                "access_token",
+                authResponse.accessToken(),
+                (int) ACCESS_TOKEN_TTL.toSeconds(),
+                true,
+                "/",
+                true
+        );
+
+        response.addCookie(refreshTokenCookie);
+        response.addCookie(accessTokenCookie);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/json");
+
+        authResponseWriter.writeValue(response.getOutputStream(), new AuthResponseDTO(
+                new AuthResponseDTO.UserSummary(authResponse.id(), authResponse.email(), authResponse.roles())
+        ));
+    }
+
     private void setSecurityContext(User user) {
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                 user,
@@ -230,22 +295,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         SecurityContextHolder.getContext().setAuthentication(authentication);
     }
 
-    private HeaderMapRequestWrapper setCustomHeaders(HeaderMapRequestWrapper wrapper, User user) {
-        Cookie[] cookies = wrapper.getCookies();
-
-        if (cookies != null) {
-            for (Cookie cookie : cookies) {
-                wrapper.addHeader(cookie.getName(), cookie.getValue());
-            }
-        }
-
-        wrapper.addHeader("X-User-ID", user.getId().toString());
-        wrapper.addHeader("X-User-Roles", user.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.joining(",")));
-        wrapper.addHeader("X-User-Email", user.getEmail());
-
-        return wrapper;
+    private void attachUserHeaders(HttpServletRequest request, User user) {
+        OutboundHeaders.authenticated(
+                INTERNAL_SERVICE_SECRET,
+                user.getId().toString(),
+                user.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .collect(Collectors.joining(","))
+        ).attachTo(request);
     }
 
     private void internalError(HttpServletResponse response, Exception e) throws IOException {
@@ -256,6 +313,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         response.getWriter().flush();
     }
 
+    private void overloadedResponse(HttpServletResponse response, ServiceOverloadedException e) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", Long.toString(Math.max(1, e.getRetryAfter().toSeconds())));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+        response.getWriter().flush();
+    }
+
     private void unauthorizedResponse(HttpServletResponse response) throws IOException {
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType("application/json");
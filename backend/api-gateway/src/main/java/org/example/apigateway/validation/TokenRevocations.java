@@ -0,0 +1,169 @@
+package org.example.apigateway.validation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Read side of auth-service's token revocations. Tokens the gateway verifies itself, or
+ * serves from {@link ValidatedTokenCache}, never reach auth-service, so revoked ones have
+ * to be caught here.
+ *
+ * <p>The {@code auth:revocations} log in Redis is tailed into a Bloom filter, so tokens
+ * that were never revoked are answered without I/O. Possible hits are confirmed against
+ * {@code auth:revoked:<jti>} and {@code auth:user-version:<id>}. auth-service owns the log
+ * and trims it; this class only reads it.
+ */
+@Component
+public class TokenRevocations {
+    private static final String LOG_KEY = "auth:revocations";
+    private static final String REVOKED_PREFIX = "auth:revoked:";
+    private static final String USER_VERSION_PREFIX = "auth:user-version:";
+    private static final String TOKEN_ENTRY = "jti:";
+    private static final String USER_ENTRY = "user:";
+    // Re-reads a little of the log each time, in case auth-service instance clocks disagree
+    private static final long CLOCK_SKEW_MILLIS = 5_000;
+
+    private final Logger logger = LoggerFactory.getLogger(TokenRevocations.class);
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final Duration rebuildInterval;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+    private final Counter localChecks;
+    private final Counter redisChecks;
+
+    private volatile BloomFilter filter;
+    private volatile boolean loaded;
+    private volatile long cursorMillis;
+    private volatile long lastRebuildNanos;
+    private volatile long lastRefreshMillis;
+
+    public TokenRevocations(StringRedisTemplate redisTemplate,
+                            MeterRegistry registry,
+                            @Value("${gateway.auth.revocation.enabled:true}") boolean enabled,
+                            @Value("${gateway.auth.revocation.rebuild-interval:1h}") Duration rebuildInterval,
+                            @Value("${gateway.auth.revocation.expected-entries:100000}") long expectedEntries,
+                            @Value("${gateway.auth.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.rebuildInterval = rebuildInterval;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.localChecks = Counter.builder("gateway.token.revocation.checks")
+                .description("Revocation checks by where they were answered")
+                .tag("source", "local")
+                .register(registry);
+        this.redisChecks = Counter.builder("gateway.token.revocation.checks")
+                .description("Revocation checks by where they were answered")
+                .tag("source", "redis")
+                .register(registry);
+        Gauge.builder("gateway.token.revocation.staleness", this, revocations -> revocations.lastRefreshMillis == 0
+                        ? Double.NaN
+                        : (System.currentTimeMillis() - revocations.lastRefreshMillis) / 1000.0)
+                .description("Seconds since the revocation filter was last refreshed")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * Whether the token was revoked, by its {@code jti} or through its user's token version.
+     * Until the log has been loaded once every check goes to Redis.
+     */
+    public boolean isRevoked(String tokenId, UUID userId, long version) {
+        if (!enabled) {
+            return false;
+        }
+
+        String tokenEntry = tokenId == null ? null : TOKEN_ENTRY + tokenId;
+        String userEntry = userId == null ? null : USER_ENTRY + userId;
+        BloomFilter current = filter;
+
+        if (loaded
+                && (tokenEntry == null || !current.mightContain(tokenEntry))
+                && (userEntry == null || !current.mightContain(userEntry))) {
+            localChecks.increment();
+
+            return false;
+        }
+
+        redisChecks.increment();
+
+        if (tokenId != null && Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_PREFIX + tokenId))) {
+            return true;
+        }
+        if (userId == null) {
+            return false;
+        }
+
+        String currentVersion = redisTemplate.opsForValue().get(USER_VERSION_PREFIX + userId);
+
+        return currentVersion != null && version < Long.parseLong(currentVersion);
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.auth.revocation.refresh-interval:1s}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            if (!loaded || filter.isSaturated() || System.nanoTime() - lastRebuildNanos > rebuildInterval.toNanos()) {
+                rebuild();
+            } else {
+                cursorMillis = addEntries(filter, cursorMillis - CLOCK_SKEW_MILLIS);
+            }
+
+            lastRefreshMillis = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            logger.error("Failed to refresh token revocations, keeping current filter: {}", e.getMessage());
+        }
+    }
+
+    private void rebuild() {
+        // Grows with the log, so a log past expected-entries does not trigger a rebuild every refresh
+        Long size = redisTemplate.opsForZSet().zCard(LOG_KEY);
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, size == null ? 0 : size * 2), falsePositiveRate);
+        long cursor = addEntries(rebuilt, 0);
+
+        filter = rebuilt;
+        cursorMillis = cursor;
+        lastRebuildNanos = System.nanoTime();
+
+        if (!loaded) {
+            loaded = true;
+            logger.info("Loaded token revocations");
+        }
+    }
+
+    private long addEntries(BloomFilter target, long fromMillis) {
+        Set<ZSetOperations.TypedTuple<String>> entries =
+                redisTemplate.opsForZSet().rangeByScoreWithScores(LOG_KEY, Math.max(0, fromMillis), Double.POSITIVE_INFINITY);
+        long cursor = Math.max(cursorMillis, fromMillis);
+
+        if (entries != null) {
+            for (ZSetOperations.TypedTuple<String> entry : entries) {
+                if (entry.getValue() != null) {
+                    target.add(entry.getValue());
+                }
+                if (entry.getScore() != null) {
+                    cursor = Math.max(cursor, entry.getScore().longValue());
+                }
+            }
+        }
+
+        return cursor;
+    }
+}
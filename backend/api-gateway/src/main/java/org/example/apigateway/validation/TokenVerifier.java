@@ -0,0 +1,279 @@
+package org.example.apigateway.validation;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SignatureException;
+import org.example.apigateway.config.exceptions.AuthenticationServiceUnavailable;
+import org.example.apigateway.users.Role;
+import org.example.apigateway.users.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verifies access tokens in-process using the public key set auth-service publishes at
+ * {@code /api/v1/auth/.well-known/jwks.json}, so the gateway never holds a signing secret.
+ * The key set is fetched lazily, refreshed once it is older than the response's
+ * {@code max-age} or the configured interval, whichever is shorter, and re-fetched early
+ * when a token references a key we do not know yet.
+ *
+ * <p>Tokens signed with the HS256 keys auth-service used before ES256 are not in the
+ * public set and are rejected here; their holders have to log in again. With
+ * {@code gateway.auth.local-verification} off they are checked by auth-service instead,
+ * which accepts them until its {@code jwt.hs256-accepted-until} cutoff and not after.
+ */
+@Service
+public class TokenVerifier {
+    private static final Duration MIN_FORCED_REFRESH_INTERVAL = Duration.ofSeconds(30);
+
+    private final RestClient restClient;
+    private final Logger logger = LoggerFactory.getLogger(TokenVerifier.class);
+    private final String INTERNAL_SERVICE_SECRET;
+    private final String BASE_AUTH_SERVICE_URL;
+    private final String keysPath;
+    private final Duration keysRefreshInterval;
+
+    // A lock rather than synchronized: key refreshes block on HTTP and must not pin virtual threads
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile KeySnapshot snapshot;
+
+    public TokenVerifier(@Qualifier("downstreamRestClient") RestClient restClient,
+                         @Value("${INTERNAL_SERVICE_SECRET}") String internalServiceSecret,
+                         @Value("${BASE_AUTH_SERVICE_URL}") String baseAuthServiceUrl,
+                         @Value("${gateway.auth.keys-path:/api/v1/auth/.well-known/jwks.json}") String keysPath,
+                         @Value("${gateway.auth.keys-refresh-interval:10m}") Duration keysRefreshInterval) {
+        this.restClient = restClient;
+        this.INTERNAL_SERVICE_SECRET = internalServiceSecret;
+        this.BASE_AUTH_SERVICE_URL = baseAuthServiceUrl;
+        this.keysPath = keysPath;
+        this.keysRefreshInterval = keysRefreshInterval;
+    }
+
+    /**
+     * Returns the user and claims carried by a valid token, or {@code null} when the token
+     * is expired, malformed or not signed by auth-service.
+     */
+    public VerifiedToken verify(String token) {
+        KeySnapshot keys = currentKeys();
+
+        try {
+            return toVerifiedToken(keys.parser().parseSignedClaims(token).getPayload());
+        } catch (SignatureException | UnknownKeyException ex) {
+            KeySnapshot refreshed = refreshKeysIfAllowed(keys);
+
+            if (refreshed == keys) {
+                logger.warn("Token rejected: {}", ex.getMessage());
+
+                return null;
+            }
+
+            return verifyWith(refreshed, token);
+        } catch (JwtException | IllegalArgumentException ex) {
+            logger.warn("Token rejected: {}", ex.getMessage());
+
+            return null;
+        }
+    }
+
+    private VerifiedToken verifyWith(KeySnapshot keys, String token) {
+        try {
+            return toVerifiedToken(keys.parser().parseSignedClaims(token).getPayload());
+        } catch (JwtException | IllegalArgumentException ex) {
+            logger.warn("Token rejected after key refresh: {}", ex.getMessage());
+
+            return null;
+        }
+    }
+
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        String email = claims.getSubject();
+        String id = claims.get("id", String.class);
+
+        if (email == null || email.isBlank() || id == null) {
+            return null;
+        }
+
+        List<?> roles = claims.get("roles", List.class);
+        User user = new User();
+        user.setEmail(email);
+        user.setId(UUID.fromString(id));
+        user.setRoles(roles == null ? List.of() : roles.stream()
+                .map(role -> Role.valueOf(role.toString()))
+                .toList());
+
+        Date expiration = claims.getExpiration();
+        Number version = claims.get("ver", Number.class);
+
+        return new VerifiedToken(
+                user,
+                expiration == null ? 0 : expiration.getTime(),
+                claims.getId(),
+                version == null ? 0 : version.longValue()
+        );
+    }
+
+    private KeySnapshot currentKeys() {
+        KeySnapshot keys = snapshot;
+
+        if (keys == null || keys.isStale()) {
+            refreshLock.lock();
+
+            try {
+                keys = snapshot;
+
+                if (keys == null || keys.isStale()) {
+                    keys = loadKeys(keys);
+                    snapshot = keys;
+                }
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+
+        return keys;
+    }
+
+    private KeySnapshot refreshKeysIfAllowed(KeySnapshot seen) {
+        refreshLock.lock();
+
+        try {
+            if (snapshot != seen) {
+                return snapshot;
+            }
+
+            if (!seen.isOlderThan(MIN_FORCED_REFRESH_INTERVAL)) {
+                return seen;
+            }
+
+            snapshot = loadKeys(seen);
+
+            return snapshot;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private KeySnapshot loadKeys(KeySnapshot previous) {
+        try {
+            ResponseEntity<String> response = restClient
+                    .get()
+                    .uri(BASE_AUTH_SERVICE_URL + keysPath)
+                    .header("X-Internal-Request", INTERNAL_SERVICE_SECRET)
+                    .retrieve()
+                    .toEntity(String.class);
+            JwkSet jwkSet = Jwks.setParser().build().parse(response.getBody());
+            Map<String, Key> keysById = new HashMap<>();
+            Key defaultKey = null;
+
+            for (Jwk<?> jwk : jwkSet.getKeys()) {
+                Key key = jwk.toKey();
+
+                if (defaultKey == null) {
+                    defaultKey = key;
+                }
+                if (jwk.getId() != null) {
+                    keysById.put(jwk.getId(), key);
+                }
+            }
+
+            if (defaultKey == null) {
+                throw new IllegalStateException("auth-service published an empty key set");
+            }
+
+            logger.info("Loaded {} token verification key(s) from auth-service", jwkSet.getKeys().size());
+
+            return new KeySnapshot(buildParser(Map.copyOf(keysById), defaultKey), System.nanoTime(),
+                    refreshIntervalFor(response.getHeaders().getCacheControl()));
+        } catch (Exception e) {
+            if (previous != null) {
+                logger.error("Failed to refresh token verification keys, keeping previous set: {}", e.getMessage());
+
+                return new KeySnapshot(previous.parser(), System.nanoTime(), keysRefreshInterval);
+            }
+
+            logger.error("Failed to load token verification keys: {}", e.getMessage());
+
+            throw new AuthenticationServiceUnavailable("Token verification keys are unavailable");
+        }
+    }
+
+    private Duration refreshIntervalFor(String cacheControl) {
+        if (cacheControl != null) {
+            for (String directive : cacheControl.split(",")) {
+                String trimmed = directive.trim();
+
+                if (trimmed.startsWith("max-age=")) {
+                    try {
+                        Duration maxAge = Duration.ofSeconds(Long.parseLong(trimmed.substring("max-age=".length())));
+
+                        // Never refetch more often than a forced refresh would
+                        if (maxAge.compareTo(MIN_FORCED_REFRESH_INTERVAL) < 0) {
+                            return MIN_FORCED_REFRESH_INTERVAL;
+                        }
+
+                        return maxAge.compareTo(keysRefreshInterval) < 0 ? maxAge : keysRefreshInterval;
+                    } catch (NumberFormatException ignored) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        return keysRefreshInterval;
+    }
+
+    private JwtParser buildParser(Map<String, Key> keysById, Key defaultKey) {
+        return Jwts.parser()
+                .keyLocator(header -> {
+                    String keyId = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+
+                    if (keyId == null) {
+                        return defaultKey;
+                    }
+
+                    Key key = keysById.get(keyId);
+
+                    if (key == null) {
+                        throw new UnknownKeyException("Unknown key id " + keyId);
+                    }
+
+                    return key;
+                })
+                .build();
+    }
+
+    private record KeySnapshot(JwtParser parser, long loadedAtNanos, Duration refreshInterval) {
+        boolean isOlderThan(Duration age) {
+            return System.nanoTime() - loadedAtNanos > age.toNanos();
+        }
+
+        boolean isStale() {
+            return isOlderThan(refreshInterval);
+        }
+    }
+
+    private static class UnknownKeyException extends JwtException {
+        UnknownKeyException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.apigateway.validation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.apigateway.users.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Size-bounded (W-TinyLFU) cache of already validated access tokens. Entries are
+ * keyed by a SHA-256 of the token so raw tokens never sit in memory, and each one
+ * expires together with the token's {@code exp} claim. Every hit is checked against
+ * {@link TokenRevocations}, so a revoked token stops working before it expires.
+ */
+@Component
+public class ValidatedTokenCache {
+    private final Cache<String, CachedUser> cache;
+    private final TokenRevocations revocations;
+
+    public ValidatedTokenCache(MeterRegistry registry,
+                               TokenRevocations revocations,
+                               @Value("${gateway.auth.token-cache.max-size:100000}") long maxSize) {
+        this.revocations = revocations;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, cache, "gateway.token.cache");
+    }
+
+    /**
+     * Returns the cached user for the token, validating it with {@code validator} on
+     * a miss. Tokens the validator rejects ({@code null}) or that have been revoked are
+     * not cached, and {@code null} is returned for them. Tokens without an expiry are
+     * returned but not cached.
+     *
+     * <p>The validator runs outside the cache's compute lock: it may call auth-service,
+     * and blocking inside a map-bin monitor would pin virtual threads. Concurrent misses
+     * for one token may therefore validate it more than once.
+     */
+    public User get(String token, Function<String, VerifiedToken> validator) {
+        String key = hash(token);
+        CachedUser cached = cache.getIfPresent(key);
+
+        if (cached != null) {
+            if (isRevoked(cached)) {
+                cache.invalidate(key);
+
+                return null;
+            }
+
+            return cached.user();
+        }
+
+        VerifiedToken verified = validator.apply(token);
+
+        if (verified == null) {
+            return null;
+        }
+
+        CachedUser entry = new CachedUser(verified.user(), verified.expiresAtMillis(), verified.tokenId(), verified.version());
+
+        if (isRevoked(entry)) {
+            return null;
+        }
+        if (entry.expiresAtMillis() > 0) {
+            cache.put(key, entry);
+        }
+
+        return entry.user();
+    }
+
+    /**
+     * Returns the cached user without triggering validation.
+     */
+    public User peek(String token) {
+        CachedUser cached = cache.getIfPresent(hash(token));
+
+        return cached == null ? null : cached.user();
+    }
+
+    public void invalidate(String token) {
+        if (token != null) {
+            cache.invalidate(hash(token));
+        }
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private boolean isRevoked(CachedUser entry) {
+        return revocations.isRevoked(entry.tokenId(), entry.user().getId(), entry.version());
+    }
+
+    private record CachedUser(User user, long expiresAtMillis, String tokenId, long version) {
+    }
+
+    private static class TokenExpiry implements Expiry<String, CachedUser> {
+        @Override
+        public long expireAfterCreate(String key, CachedUser value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedUser value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedUser value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
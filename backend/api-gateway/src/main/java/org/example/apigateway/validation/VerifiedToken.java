@@ -0,0 +1,12 @@
+package org.example.apigateway.validation;
+
+import org.example.apigateway.users.User;
+
+/**
+ * A token that passed verification, with the claims the gateway needs after that: its
+ * expiry for {@link ValidatedTokenCache}, and its {@code jti} and {@code ver} for
+ * {@link TokenRevocations}. {@code expiresAtMillis} is 0 when the token carries no
+ * {@code exp}; such tokens are not cached.
+ */
+public record VerifiedToken(User user, long expiresAtMillis, String tokenId, long version) {
+}
@@ -0,0 +1,17 @@
+package org.example.apigateway.validation.records;
+
+import org.example.apigateway.users.Role;
+
+import java.util.List;
+import java.util.UUID;
+
+public record AuthResponseDTO(
+        UserSummary user
+) {
+    public record UserSummary(
+            UUID id,
+            String email,
+            List<Role> roles
+    ) {
+    }
+}
@@ -2,12 +2,16 @@ package org.example.apigateway.validation.records;
 
 import org.example.apigateway.users.Role;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
 public record UserTokenInfoDTO(
         String email,
         UUID id,
-        List<Role> roles
+        List<Role> roles,
+        Instant expiresAt,
+        String tokenId,
+        long version
 ) {
 }
\ No newline at end of file
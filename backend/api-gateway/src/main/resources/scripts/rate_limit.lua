@@ -0,0 +1,32 @@
+-- Token bucket with continuous refill. Grants up to ARGV[3] tokens in one call so
+-- gateway instances can pre-fetch a small batch instead of hitting Redis per request.
+-- KEYS[1]  bucket key
+-- ARGV[1]  capacity
+-- ARGV[2]  refill period in milliseconds (capacity tokens per period)
+-- ARGV[3]  tokens requested
+local capacity = tonumber(ARGV[1])
+local period_ms = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now_ms = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local ts = tonumber(state[2])
+
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now_ms
+end
+
+local elapsed = math.max(0, now_ms - ts)
+tokens = math.min(capacity, tokens + elapsed * capacity / period_ms)
+
+local granted = math.min(requested, math.floor(tokens))
+tokens = tokens - granted
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now_ms))
+redis.call('PEXPIRE', KEYS[1], period_ms * 2)
+
+return granted
@@ -0,0 +1,202 @@
+package org.example.apigateway.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionFilterTest {
+    private static final String LARGE_JSON = "{\"items\":[" + "{\"id\":1,\"name\":\"item\"},".repeat(200) + "{}]}";
+    private static final String SMALL_JSON = "{\"id\":1}";
+
+    private CompressionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new CompressionFilter(new CompressionProperties());
+    }
+
+    private static MockHttpServletRequest request(String method, boolean acceptsGzip) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/v1/accounts");
+        if (acceptsGzip) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        }
+
+        return request;
+    }
+
+    private static FilterChain writing(String contentType, String body) {
+        return (request, response) -> {
+            response.setContentType(contentType);
+            response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("Should gzip a large body of a configured type for a gzip client")
+    void compressLargeJson() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("GET", true), response, writing("application/json", LARGE_JSON));
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertTrue(response.getContentAsByteArray().length < LARGE_JSON.length());
+        assertEquals(LARGE_JSON, gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    @DisplayName("Should drop a declared Content-Length when compressing")
+    void dropContentLengthWhenCompressing() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        byte[] body = LARGE_JSON.getBytes(StandardCharsets.UTF_8);
+
+        filter.doFilter(request("GET", true), response, (req, res) -> {
+            res.setContentType("application/json");
+            res.setContentLength(body.length);
+            res.getOutputStream().write(body);
+        });
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals(LARGE_JSON, gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    @DisplayName("Should send small bodies as-is but still with Vary")
+    void keepSmallBodies() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("GET", true), response, writing("application/json", SMALL_JSON));
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertEquals(SMALL_JSON, response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Should not compress for clients without gzip but still send Vary")
+    void identityForClientsWithoutGzip() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("GET", false), response, writing("application/json", LARGE_JSON));
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertEquals(LARGE_JSON, response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Should leave types without a level alone")
+    void skipUnlistedTypes() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("GET", true), response, writing("image/png", LARGE_JSON));
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNull(response.getHeader(HttpHeaders.VARY));
+        assertEquals(LARGE_JSON, response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Should relay bodies that already have a Content-Encoding untouched")
+    void keepEncodedBodies() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("GET", true), response, (req, res) -> {
+            ((HttpServletResponse) res).setHeader(HttpHeaders.CONTENT_ENCODING, "br");
+            writing("application/json", LARGE_JSON).doFilter(req, res);
+        });
+
+        assertEquals("br", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(LARGE_JSON, response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Should weaken a strong ETag on a compressed response")
+    void weakenETagWhenCompressing() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("GET", true), response, (req, res) -> {
+            ((HttpServletResponse) res).setHeader(HttpHeaders.ETAG, "\"abc\"");
+            writing("application/json", LARGE_JSON).doFilter(req, res);
+        });
+
+        assertEquals("W/\"abc\"", response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("Should hand non-blocking writers the container's stream uncompressed")
+    void passThroughNonBlockingWrites() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ListenerRecordingStream container = new ListenerRecordingStream();
+        HttpServletResponse nonBlockingResponse = new HttpServletResponseWrapper(response) {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return container;
+            }
+        };
+        WriteListener listener = new WriteListener() {
+            @Override
+            public void onWritePossible() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        };
+
+        filter.doFilter(request("GET", true), nonBlockingResponse, (req, res) -> {
+            res.setContentType("application/json");
+            ServletOutputStream out = res.getOutputStream();
+            out.setWriteListener(listener);
+            assertTrue(out.isReady());
+            out.write(LARGE_JSON.getBytes(StandardCharsets.UTF_8));
+        });
+
+        assertSame(listener, container.listener);
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(LARGE_JSON, container.written.toString(StandardCharsets.UTF_8));
+    }
+
+    private static class ListenerRecordingStream extends ServletOutputStream {
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private WriteListener listener;
+
+        @Override
+        public boolean isReady() {
+            return listener != null;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            listener = writeListener;
+        }
+
+        @Override
+        public void write(int b) {
+            written.write(b);
+        }
+    }
+}
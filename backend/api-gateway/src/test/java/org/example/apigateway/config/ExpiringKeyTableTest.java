@@ -0,0 +1,92 @@
+package org.example.apigateway.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringKeyTableTest {
+    private static final long IDLE_NANOS = Duration.ofMillis(200).toNanos();
+    private static final long TICK_NANOS = Duration.ofMillis(20).toNanos();
+
+    private static ExpiringKeyTable<String, String> table(int maxKeys) {
+        return new ExpiringKeyTable<>(IDLE_NANOS, TICK_NANOS, 16, maxKeys);
+    }
+
+    @Test
+    @DisplayName("Should create a value once per key and return it on later lookups")
+    void createOncePerKey() {
+        ExpiringKeyTable<String, String> table = table(10);
+        AtomicInteger created = new AtomicInteger();
+
+        String first = table.get("a", k -> k + created.incrementAndGet());
+        String second = table.get("a", k -> k + created.incrementAndGet());
+
+        assertEquals("a1", first);
+        assertSame(first, second);
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    @DisplayName("Should drop entries that stayed idle for the whole timeout")
+    void expireIdleEntries() throws InterruptedException {
+        ExpiringKeyTable<String, String> table = table(10);
+        table.get("a", k -> "value");
+
+        Thread.sleep(300);
+        table.advance();
+
+        assertEquals(0, table.size());
+        assertEquals("fresh", table.get("a", k -> "fresh"));
+    }
+
+    @Test
+    @DisplayName("Should keep entries accessed since they were scheduled")
+    void keepRecentlyAccessedEntries() throws InterruptedException {
+        ExpiringKeyTable<String, String> table = table(10);
+        table.get("a", k -> "value");
+
+        Thread.sleep(120);
+        table.get("a", k -> "other");
+        Thread.sleep(120);
+        table.advance();
+
+        assertEquals(1, table.size());
+        assertEquals("value", table.get("a", k -> "other"));
+    }
+
+    @Test
+    @DisplayName("Should refuse new keys once full but keep serving tracked ones")
+    void refuseNewKeysWhenFull() {
+        ExpiringKeyTable<String, String> table = table(2);
+        table.get("a", k -> "a");
+        table.get("b", k -> "b");
+
+        assertNull(table.get("c", k -> "c"));
+        assertEquals("a", table.get("a", k -> "other"));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    @DisplayName("Should make room for new keys after idle ones expire")
+    void acceptNewKeysAfterExpiry() throws InterruptedException {
+        ExpiringKeyTable<String, String> table = table(1);
+        table.get("a", k -> "a");
+        assertNull(table.get("b", k -> "b"));
+
+        Thread.sleep(300);
+        table.advance();
+
+        assertEquals("b", table.get("b", k -> "b"));
+    }
+
+    @Test
+    @DisplayName("Should reject a wheel that does not span the idle timeout")
+    void rejectShortWheel() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ExpiringKeyTable<String, String>(IDLE_NANOS, TICK_NANOS, 10, 10));
+    }
+}
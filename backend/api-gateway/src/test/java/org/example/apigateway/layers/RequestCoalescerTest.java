@@ -0,0 +1,179 @@
+package org.example.apigateway.layers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.apigateway.config.exceptions.CoalescedRequestException;
+import org.example.apigateway.routing.Route;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestCoalescerTest {
+    private SimpleMeterRegistry registry;
+    private RequestCoalescer coalescer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer(registry);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static Route route(Duration maxWait) {
+        return new Route("accounts", "/api/v1/accounts", "account", false, Duration.ofSeconds(5), true, false,
+                1, Duration.ZERO, true, maxWait, null, List.of(), false, Duration.ZERO);
+    }
+
+    private static BufferedResponse response(String body) {
+        return new BufferedResponse(200, HttpHeaders.EMPTY, body.getBytes());
+    }
+
+    private double count(String outcome) {
+        return registry.get("gateway.coalesce.requests").tag("outcome", outcome).counter().count();
+    }
+
+    // Leader call that blocks until released, so other callers arrive while it is in flight
+    private CompletableFuture<BufferedResponse> startLeader(Route route,
+                                                            CountDownLatch release,
+                                                            Supplier<BufferedResponse> result) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<BufferedResponse> leader = CompletableFuture.supplyAsync(() -> coalescer.execute(route, "key", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return result.get();
+        }), executor);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        return leader;
+    }
+
+    @Test
+    @DisplayName("Should make the call itself when nothing is in flight")
+    void leaderMakesCall() {
+        BufferedResponse expected = response("a");
+
+        assertSame(expected, coalescer.execute(route(Duration.ofSeconds(1)), "key", () -> expected));
+        assertEquals(1, count("leader"));
+    }
+
+    @Test
+    @DisplayName("Should hand the in-flight result to callers that arrive while it runs")
+    void followersShareResult() throws Exception {
+        Route route = route(Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        BufferedResponse expected = response("shared");
+        AtomicInteger followerCalls = new AtomicInteger();
+        CompletableFuture<BufferedResponse> leader = startLeader(route, release, () -> expected);
+
+        CompletableFuture<BufferedResponse> follower = CompletableFuture.supplyAsync(() -> coalescer.execute(route, "key", () -> {
+            followerCalls.incrementAndGet();
+
+            return response("own");
+        }), executor);
+        Thread.sleep(100);
+        release.countDown();
+
+        assertSame(expected, leader.get(5, TimeUnit.SECONDS));
+        assertSame(expected, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(0, followerCalls.get());
+        assertEquals(1, count("coalesced"));
+    }
+
+    @Test
+    @DisplayName("Should make its own call once a caller has waited longer than max-wait")
+    void followerGivesUpAfterMaxWait() throws Exception {
+        Route route = route(Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<BufferedResponse> leader = startLeader(route, release, () -> response("slow"));
+        BufferedResponse own = response("own");
+
+        try {
+            assertSame(own, coalescer.execute(route, "key", () -> own));
+            assertEquals(1, count("timeout"));
+        } finally {
+            release.countDown();
+            leader.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("Should give every waiting caller the shared call's error")
+    void followersShareFailure() throws Exception {
+        Route route = route(Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<BufferedResponse> leader = startLeader(route, release, () -> {
+            throw new IllegalStateException("downstream failed");
+        });
+
+        CompletableFuture<BufferedResponse> follower = CompletableFuture.supplyAsync(
+                () -> coalescer.execute(route, "key", () -> response("own")), executor);
+        Thread.sleep(100);
+        release.countDown();
+
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertSame(leaderError.getCause(), followerError.getCause());
+    }
+
+    @Test
+    @DisplayName("Should mark a shared I/O failure so only the caller that made the call counts it")
+    void followersShareIoFailure() throws Exception {
+        Route route = route(Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        ResourceAccessException failure = new ResourceAccessException("Read timed out");
+        CompletableFuture<BufferedResponse> leader = startLeader(route, release, () -> {
+            throw failure;
+        });
+
+        CompletableFuture<BufferedResponse> follower = CompletableFuture.supplyAsync(
+                () -> coalescer.execute(route, "key", () -> response("own")), executor);
+        Thread.sleep(100);
+        release.countDown();
+
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertSame(failure, leaderError.getCause());
+        assertInstanceOf(CoalescedRequestException.class, followerError.getCause());
+        assertSame(failure, followerError.getCause().getCause());
+    }
+
+    @Test
+    @DisplayName("Should not reuse a result once its call has completed")
+    void completedCallIsNotReused() {
+        Route route = route(Duration.ofSeconds(1));
+        BufferedResponse first = response("first");
+        BufferedResponse second = response("second");
+
+        coalescer.execute(route, "key", () -> first);
+
+        assertSame(second, coalescer.execute(route, "key", () -> second));
+        assertEquals(2, count("leader"));
+    }
+}
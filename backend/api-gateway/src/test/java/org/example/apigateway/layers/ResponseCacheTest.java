@@ -0,0 +1,182 @@
+package org.example.apigateway.layers;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.apigateway.routing.Route;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+@ExtendWith(MockitoExtension.class)
+public class ResponseCacheTest {
+    private static final Route USERS = route("users", List.of());
+    private static final Route PROFILE = route("profile", List.of("users"));
+
+    @Mock private GatewayService gatewayService;
+
+    private SimpleMeterRegistry registry;
+    private ResponseCache cache;
+    private List<String> loadedKeys;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new ResponseCache(gatewayService, registry, 100);
+        loadedKeys = new ArrayList<>();
+    }
+
+    private static Route route(String id, List<String> invalidates) {
+        return new Route(id, "/api/v1/" + id, "user", false, Duration.ofSeconds(5), true, false,
+                1, Duration.ZERO, false, Duration.ZERO, Duration.ofMinutes(1), invalidates, false, Duration.ZERO);
+    }
+
+    private Function<String, BufferedResponse> loader(int status, HttpHeaders headers, String body) {
+        return key -> {
+            loadedKeys.add(key);
+
+            return new BufferedResponse(status, headers, body.getBytes());
+        };
+    }
+
+    private Function<String, BufferedResponse> loader(String body) {
+        return loader(200, HttpHeaders.EMPTY, body);
+    }
+
+    private MockHttpServletResponse serve(Route route, String principal, MockHttpServletRequest request,
+                                          Function<String, BufferedResponse> loader) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        cache.serve(route, principal, principal + " GET /api/v1/users/me", request, response, loader);
+
+        return response;
+    }
+
+    private MockHttpServletResponse serve(Route route, String principal, Function<String, BufferedResponse> loader) throws Exception {
+        return serve(route, principal, new MockHttpServletRequest("GET", "/api/v1/users/me"), loader);
+    }
+
+    private BufferedResponse lastWritten() throws Exception {
+        ArgumentCaptor<BufferedResponse> written = ArgumentCaptor.forClass(BufferedResponse.class);
+        verify(gatewayService, atLeastOnce()).writeBuffered(written.capture(), any());
+
+        return written.getValue();
+    }
+
+    @Test
+    @DisplayName("Should load a miss once and serve later requests from the cache")
+    void serveHitsFromCache() throws Exception {
+        serve(USERS, "alice", loader("first"));
+        serve(USERS, "alice", loader("second"));
+
+        assertEquals(1, loadedKeys.size());
+        assertEquals("first", new String(lastWritten().body()));
+        verify(gatewayService, times(2)).writeBuffered(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should give cached responses a weak ETag and revalidating Cache-Control")
+    void addWeakETag() throws Exception {
+        serve(USERS, "alice", loader("body"));
+
+        HttpHeaders headers = lastWritten().headers();
+        assertTrue(headers.getETag().startsWith("W/\""), headers.getETag());
+        assertEquals("private, no-cache", headers.getCacheControl());
+    }
+
+    @Test
+    @DisplayName("Should weaken a strong ETag sent by the backend")
+    void weakenBackendETag() throws Exception {
+        HttpHeaders backend = new HttpHeaders();
+        backend.setETag("\"v1\"");
+
+        serve(USERS, "alice", loader(200, backend, "body"));
+
+        assertEquals("W/\"v1\"", lastWritten().headers().getETag());
+    }
+
+    @Test
+    @DisplayName("Should answer a matching If-None-Match with 304 and the caching headers")
+    void notModified() throws Exception {
+        serve(USERS, "alice", loader("body"));
+        String eTag = lastWritten().headers().getETag();
+        clearInvocations(gatewayService);
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/api/v1/users/me");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", " + eTag.substring(2));
+        MockHttpServletResponse response = serve(USERS, "alice", conditional, loader("body"));
+
+        assertEquals(304, response.getStatus());
+        assertEquals(eTag, response.getHeader(HttpHeaders.ETAG));
+        assertEquals("private, no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(1, registry.get("gateway.response.cache.not.modified").counter().count());
+        verify(gatewayService, never()).writeBuffered(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should serve the full response when If-None-Match does not match")
+    void modified() throws Exception {
+        serve(USERS, "alice", loader("body"));
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/api/v1/users/me");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"stale\"");
+        MockHttpServletResponse response = serve(USERS, "alice", conditional, loader("body"));
+
+        assertNotEquals(304, response.getStatus());
+        verify(gatewayService, times(2)).writeBuffered(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should not cache responses other than 200")
+    void skipErrors() throws Exception {
+        serve(USERS, "alice", loader(404, HttpHeaders.EMPTY, "missing"));
+        serve(USERS, "alice", loader(404, HttpHeaders.EMPTY, "missing"));
+
+        assertEquals(2, loadedKeys.size());
+    }
+
+    @Test
+    @DisplayName("Should load under a new version after the user's mutation")
+    void invalidateOwnRoute() throws Exception {
+        serve(USERS, "alice", loader("before"));
+        cache.invalidate(USERS, "alice");
+        serve(USERS, "alice", loader("after"));
+
+        assertEquals(2, loadedKeys.size());
+        assertNotEquals(loadedKeys.get(0), loadedKeys.get(1));
+        assertEquals("after", new String(lastWritten().body()));
+    }
+
+    @Test
+    @DisplayName("Should invalidate the routes a mutation lists under invalidates")
+    void invalidateListedRoutes() throws Exception {
+        serve(USERS, "alice", loader("before"));
+        cache.invalidate(PROFILE, "alice");
+        serve(USERS, "alice", loader("after"));
+
+        assertEquals(2, loadedKeys.size());
+    }
+
+    @Test
+    @DisplayName("Should keep other users' entries when one user mutates")
+    void invalidationIsPerUser() throws Exception {
+        serve(USERS, "bob", loader("bob"));
+        cache.invalidate(USERS, "alice");
+        serve(USERS, "bob", loader("bob again"));
+
+        assertEquals(1, loadedKeys.size());
+    }
+}
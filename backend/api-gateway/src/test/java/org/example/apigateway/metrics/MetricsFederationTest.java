@@ -0,0 +1,107 @@
+package org.example.apigateway.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsFederationTest {
+    private MetricsFederation federation;
+
+    @BeforeEach
+    void setUp() {
+        FederationProperties properties = new FederationProperties();
+        properties.setServices(List.of("svc"));
+
+        federation = new MetricsFederation(null, null, properties);
+    }
+
+    private String federate(String exposition) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(exposition));
+
+        return new String(MetricsFederation.render(federation.parse(reader, "svc")), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should keep histogram series under their family header and add the service label")
+    void histogram() throws IOException {
+        String federated = federate("""
+                # HELP latency Request latency
+                # TYPE latency histogram
+                latency_bucket{le="0.1"} 1
+                latency_bucket{le="+Inf"} 3
+                latency_sum 0.7
+                latency_count 3
+                """);
+
+        assertEquals("""
+                # HELP latency Request latency
+                # TYPE latency histogram
+                latency_bucket{service="svc",le="0.1"} 1
+                latency_bucket{service="svc",le="+Inf"} 3
+                latency_sum{service="svc"} 0.7
+                latency_count{service="svc"} 3
+                """, federated);
+    }
+
+    @Test
+    @DisplayName("Should not file a metric that merely shares a prefix under the previous family")
+    void prefixIsNotFamily() throws IOException {
+        String federated = federate("""
+                # TYPE requests counter
+                requests_total 5
+                requests_bar 2
+                """);
+
+        assertEquals("""
+                # TYPE requests counter
+                requests_total{service="svc"} 5
+                requests_bar{service="svc"} 2
+                """, federated);
+
+        BufferedReader reader = new BufferedReader(new StringReader("""
+                # TYPE requests counter
+                requests_total 5
+                requests_bar 2
+                """));
+
+        assertEquals(List.of("requests", "requests_bar"), List.copyOf(federation.parse(reader, "svc").keySet()));
+    }
+
+    @Test
+    @DisplayName("Should add the service label to empty and missing label sets")
+    void labels() throws IOException {
+        String federated = federate("""
+                up{} 1
+                uptime 42 1700000000000
+                """);
+
+        assertEquals("""
+                up{service="svc"} 1
+                uptime{service="svc"} 42 1700000000000
+                """, federated);
+    }
+
+    @Test
+    @DisplayName("Should skip comments and blank lines that are not HELP or TYPE")
+    void comments() throws IOException {
+        String federated = federate("""
+                # just a comment
+
+                # HELP jobs Queued jobs
+                jobs 4
+                """);
+
+        assertEquals("""
+                # HELP jobs Queued jobs
+                jobs{service="svc"} 4
+                """, federated);
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.apigateway.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveLimitTest {
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofMillis(100).toNanos();
+
+    // Completes one call while the limit is fully used, so the sample may grow it
+    private static void saturatedSample(AdaptiveLimit limit, long rttNanos) {
+        while (limit.tryAcquire()) {
+            // fill every slot
+        }
+        limit.onSuccess(rttNanos);
+    }
+
+    private static void drain(AdaptiveLimit limit) {
+        while (limit.inflight() > 0) {
+            limit.onIgnored();
+        }
+    }
+
+    @Test
+    @DisplayName("Should admit calls up to the initial limit and reject the next one")
+    void admitUpToLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(new ConcurrencyLimitProperties.Limit());
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+
+        assertFalse(limit.tryAcquire());
+        assertEquals(20, limit.inflight());
+    }
+
+    @Test
+    @DisplayName("Should grow the limit while latency stays at the baseline and slots are in use")
+    void growAtSteadyLatency() {
+        AdaptiveLimit limit = new AdaptiveLimit(new ConcurrencyLimitProperties.Limit());
+
+        for (int i = 0; i < 50; i++) {
+            saturatedSample(limit, FAST);
+        }
+
+        assertTrue(limit.limit() > 20, "limit " + limit.limit());
+    }
+
+    @Test
+    @DisplayName("Should not grow a limit that traffic is not using")
+    void holdWhenUnderused() {
+        AdaptiveLimit limit = new AdaptiveLimit(new ConcurrencyLimitProperties.Limit());
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.onSuccess(FAST);
+        }
+
+        assertEquals(20, limit.limit());
+    }
+
+    @Test
+    @DisplayName("Should shrink the limit once recent latency rises past the tolerance")
+    void shrinkWhenLatencyRises() {
+        AdaptiveLimit limit = new AdaptiveLimit(new ConcurrencyLimitProperties.Limit());
+
+        for (int i = 0; i < 50; i++) {
+            saturatedSample(limit, FAST);
+        }
+        drain(limit);
+        int beforeSlowdown = limit.limit();
+
+        for (int i = 0; i < 20; i++) {
+            saturatedSample(limit, SLOW);
+        }
+
+        assertTrue(limit.limit() < beforeSlowdown, limit.limit() + " >= " + beforeSlowdown);
+    }
+
+    @Test
+    @DisplayName("Should keep the limit within the configured bounds")
+    void clampToBounds() {
+        ConcurrencyLimitProperties.Limit config = new ConcurrencyLimitProperties.Limit();
+        config.setMaxLimit(25);
+        AdaptiveLimit limit = new AdaptiveLimit(config);
+
+        for (int i = 0; i < 500; i++) {
+            saturatedSample(limit, FAST);
+        }
+
+        assertEquals(25, limit.limit());
+    }
+
+    @Test
+    @DisplayName("Should cut the limit by the backoff ratio on a dropped call, down to the minimum")
+    void backOffOnDrop() {
+        AdaptiveLimit limit = new AdaptiveLimit(new ConcurrencyLimitProperties.Limit());
+
+        assertTrue(limit.tryAcquire());
+        limit.onDropped();
+
+        assertEquals(18, limit.limit());
+        assertEquals(0, limit.inflight());
+
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.onDropped();
+        }
+
+        assertEquals(5, limit.limit());
+    }
+
+    @Test
+    @DisplayName("Should release an ignored call without moving the limit")
+    void ignoreReleasesSlot() {
+        AdaptiveLimit limit = new AdaptiveLimit(new ConcurrencyLimitProperties.Limit());
+
+        assertTrue(limit.tryAcquire());
+        limit.onIgnored();
+
+        assertEquals(0, limit.inflight());
+        assertEquals(20, limit.limit());
+    }
+}
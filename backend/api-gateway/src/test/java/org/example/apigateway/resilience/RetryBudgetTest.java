@@ -0,0 +1,84 @@
+package org.example.apigateway.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryBudgetTest {
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    private double tokens() {
+        return registry.get("gateway.retry.budget.tokens").gauge().value();
+    }
+
+    private double count(String outcome) {
+        return registry.get("gateway.retry.budget").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should start full and refuse extra attempts once drained")
+    void drainFromFull() {
+        RetryBudget budget = new RetryBudget(0.1, 0, 3, registry);
+
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        assertEquals(3, count("granted"));
+        assertEquals(1, count("exhausted"));
+        assertEquals(0, tokens());
+    }
+
+    @Test
+    @DisplayName("Should afford one extra attempt per 1/ratio original requests")
+    void depositPerRequest() {
+        RetryBudget budget = new RetryBudget(0.25, 0, 1, registry);
+        assertTrue(budget.tryAcquire());
+
+        for (int i = 0; i < 3; i++) {
+            budget.recordRequest();
+            assertFalse(budget.tryAcquire());
+        }
+
+        budget.recordRequest();
+
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should not bank more than max-tokens")
+    void capAtMaxTokens() {
+        RetryBudget budget = new RetryBudget(1.0, 0, 2, registry);
+
+        for (int i = 0; i < 100; i++) {
+            budget.recordRequest();
+        }
+
+        assertEquals(2, tokens());
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should refill at min-per-second without any traffic")
+    void refillOverTime() throws InterruptedException {
+        RetryBudget budget = new RetryBudget(0.1, 10, 1, registry);
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        Thread.sleep(250);
+
+        assertTrue(budget.tryAcquire());
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.apigateway.routing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteTrieTest {
+    private RouteTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new RouteTrie();
+    }
+
+    private static Route route(String id, String prefix) {
+        return new Route(id, prefix, "service", false, Duration.ofSeconds(5), true, false,
+                1, Duration.ZERO, false, Duration.ZERO, null, List.of(), false, Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("Should match the route whose prefix is the request path")
+    void matchExactPrefix() {
+        Route users = route("users", "/api/v1/users");
+        trie.add(users);
+
+        assertSame(users, trie.match("/api/v1/users"));
+        assertSame(users, trie.match("/api/v1/users/"));
+    }
+
+    @Test
+    @DisplayName("Should match paths below a prefix but not paths that only share its characters")
+    void matchWholeSegmentsOnly() {
+        Route users = route("users", "/api/v1/users");
+        trie.add(users);
+
+        assertSame(users, trie.match("/api/v1/users/42/accounts"));
+        assertNull(trie.match("/api/v1/usersettings"));
+        assertNull(trie.match("/api/v1"));
+    }
+
+    @Test
+    @DisplayName("Should prefer the longest matching prefix regardless of insertion order")
+    void longestPrefixWins() {
+        Route api = route("api", "/api/v1");
+        Route users = route("users", "/api/v1/users");
+        Route accounts = route("accounts", "/api/v1/users/accounts");
+        trie.add(accounts);
+        trie.add(api);
+        trie.add(users);
+
+        assertSame(accounts, trie.match("/api/v1/users/accounts/7"));
+        assertSame(users, trie.match("/api/v1/users/7"));
+        assertSame(api, trie.match("/api/v1/transactions"));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the shorter prefix when the longer branch stops matching")
+    void fallBackToShorterPrefix() {
+        Route users = route("users", "/api/v1/users");
+        trie.add(users);
+        trie.add(route("accounts", "/api/v1/users/accounts/internal"));
+
+        assertSame(users, trie.match("/api/v1/users/accounts/7"));
+    }
+
+    @Test
+    @DisplayName("Should ignore repeated slashes in the request path")
+    void ignoreEmptySegments() {
+        Route users = route("users", "/api/v1/users");
+        trie.add(users);
+
+        assertSame(users, trie.match("//api//v1/users//42"));
+    }
+
+    @Test
+    @DisplayName("Should match every path with a root route when nothing longer matches")
+    void rootRouteMatchesEverything() {
+        Route root = route("root", "/");
+        Route users = route("users", "/api/v1/users");
+        trie.add(root);
+        trie.add(users);
+
+        assertSame(root, trie.match("/health"));
+        assertSame(root, trie.match("/"));
+        assertSame(users, trie.match("/api/v1/users"));
+    }
+
+    @Test
+    @DisplayName("Should reject two routes with the same prefix")
+    void rejectDuplicatePrefix() {
+        trie.add(route("users", "/api/v1/users"));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> trie.add(route("users-v2", "/api/v1/users")));
+
+        assertTrue(ex.getMessage().contains("users-v2"));
+    }
+}
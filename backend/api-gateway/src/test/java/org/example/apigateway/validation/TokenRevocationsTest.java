@@ -0,0 +1,174 @@
+package org.example.apigateway.validation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Mirrors auth-service's TokenRevocationsTest: both read the same Redis layout and have to
+ * agree on which tokens are revoked.
+ */
+@ExtendWith(MockitoExtension.class)
+public class TokenRevocationsTest {
+    private static final String LOG_KEY = "auth:revocations";
+    private static final long REVOKED_AT = 1_700_000_000_000L;
+    private static final UUID REVOKED_USER = UUID.fromString("6f1c2b7e-3d4a-4c5b-9e8f-0a1b2c3d4e5f");
+    private static final UUID OTHER_USER = UUID.fromString("0b9a8c7d-6e5f-4a3b-8c2d-1e0f9a8b7c6d");
+
+    @Mock private StringRedisTemplate redisTemplate;
+    @Mock private ZSetOperations<String, String> zSet;
+    @Mock private ValueOperations<String, String> values;
+
+    private SimpleMeterRegistry registry;
+    private TokenRevocations revocations;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSet);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(values);
+        revocations = new TokenRevocations(redisTemplate, registry, true, Duration.ofHours(1), 1000, 0.001);
+    }
+
+    private static Set<ZSetOperations.TypedTuple<String>> log(Object... entriesAndScores) {
+        Set<ZSetOperations.TypedTuple<String>> entries = new LinkedHashSet<>();
+
+        for (int i = 0; i < entriesAndScores.length; i += 2) {
+            entries.add(ZSetOperations.TypedTuple.of((String) entriesAndScores[i], ((Number) entriesAndScores[i + 1]).doubleValue()));
+        }
+
+        return entries;
+    }
+
+    private void load() {
+        when(zSet.zCard(LOG_KEY)).thenReturn(2L);
+        when(zSet.rangeByScoreWithScores(LOG_KEY, 0, Double.POSITIVE_INFINITY))
+                .thenReturn(log("jti:revoked", REVOKED_AT, "user:" + REVOKED_USER, REVOKED_AT + 1));
+        revocations.refresh();
+    }
+
+    private double checks(String source) {
+        return registry.get("gateway.token.revocation.checks").tag("source", source).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should ask Redis until the log has been loaded")
+    void redisBeforeLoad() {
+        when(redisTemplate.hasKey("auth:revoked:t1")).thenReturn(false);
+
+        assertFalse(revocations.isRevoked("t1", null, 0));
+        assertEquals(1.0, checks("redis"));
+    }
+
+    @Test
+    @DisplayName("Should answer tokens that were never revoked without Redis")
+    void localMiss() {
+        load();
+
+        assertFalse(revocations.isRevoked("fresh", OTHER_USER, 0));
+        assertEquals(1.0, checks("local"));
+        verify(redisTemplate, never()).hasKey(anyString());
+        verify(values, never()).get(anyString());
+    }
+
+    @Test
+    @DisplayName("Should confirm a revoked jti against its Redis key")
+    void revokedToken() {
+        load();
+        when(redisTemplate.hasKey("auth:revoked:revoked")).thenReturn(true);
+
+        assertTrue(revocations.isRevoked("revoked", null, 0));
+        assertEquals(1.0, checks("redis"));
+    }
+
+    @Test
+    @DisplayName("Should revoke tokens issued below the user's current version only")
+    void userVersion() {
+        load();
+        when(redisTemplate.hasKey(anyString())).thenReturn(false);
+        when(values.get("auth:user-version:" + REVOKED_USER)).thenReturn("3");
+
+        assertTrue(revocations.isRevoked("older", REVOKED_USER, 2));
+        assertFalse(revocations.isRevoked("current", REVOKED_USER, 3));
+    }
+
+    @Test
+    @DisplayName("Should fall back to Redis on a filter hit and trust its answer")
+    void falsePositiveFallback() {
+        load();
+        // In the log, but the key has expired with the token: Redis has the final say
+        when(redisTemplate.hasKey("auth:revoked:revoked")).thenReturn(false);
+
+        assertFalse(revocations.isRevoked("revoked", null, 0));
+        assertEquals(1.0, checks("redis"));
+    }
+
+    @Test
+    @DisplayName("Should tail the log from the last score minus the clock skew allowance")
+    void tail() {
+        load();
+        when(zSet.rangeByScoreWithScores(LOG_KEY, REVOKED_AT + 1 - 5_000, Double.POSITIVE_INFINITY))
+                .thenReturn(log("jti:later", REVOKED_AT + 10));
+        when(redisTemplate.hasKey("auth:revoked:later")).thenReturn(true);
+
+        revocations.refresh();
+
+        assertTrue(revocations.isRevoked("later", null, 0));
+        verify(zSet, times(1)).zCard(LOG_KEY);
+    }
+
+    @Test
+    @DisplayName("Should not rebuild because each tail reads the last entries again")
+    void repeatedTail() {
+        // Sized for two entries, so re-counting the overlap would saturate it within a few refreshes
+        TokenRevocations small = new TokenRevocations(redisTemplate, registry, true, Duration.ofHours(1), 2, 0.001);
+        when(zSet.zCard(LOG_KEY)).thenReturn(2L);
+        when(zSet.rangeByScoreWithScores(eq(LOG_KEY), anyDouble(), eq(Double.POSITIVE_INFINITY)))
+                .thenReturn(log("jti:revoked", REVOKED_AT, "user:" + REVOKED_USER, REVOKED_AT + 1));
+
+        for (int i = 0; i < 10; i++) {
+            small.refresh();
+        }
+
+        verify(zSet, times(1)).zCard(LOG_KEY);
+    }
+
+    @Test
+    @DisplayName("Should keep the current filter when Redis fails during a refresh")
+    void refreshFailure() {
+        load();
+        when(zSet.rangeByScoreWithScores(eq(LOG_KEY), anyDouble(), anyDouble())).thenThrow(new IllegalStateException("down"));
+
+        revocations.refresh();
+
+        assertFalse(revocations.isRevoked("fresh", null, 0));
+        assertEquals(1.0, checks("local"));
+    }
+
+    @Test
+    @DisplayName("Should never report a revocation when disabled")
+    void disabled() {
+        TokenRevocations disabled = new TokenRevocations(redisTemplate, new SimpleMeterRegistry(), false, Duration.ofHours(1), 1000, 0.001);
+
+        disabled.refresh();
+
+        assertFalse(disabled.isRevoked("revoked", REVOKED_USER, 0));
+        verifyNoInteractions(redisTemplate);
+    }
+}
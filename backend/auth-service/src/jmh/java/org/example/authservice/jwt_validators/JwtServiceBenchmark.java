@@ -0,0 +1,124 @@
+package org.example.authservice.jwt_validators;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The token checks behind {@code /api/v1/auth/validate}: {@link JwtService#parseToken}
+ * verifying once, against the previous per-claim path that built a parser and verified
+ * the signature again for the subject, the validity check (subject and expiry), the
+ * user id and the roles. Run for ES256, which new tokens are signed with, and for the
+ * HS256 keys still accepted from before the switch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtServiceBenchmark {
+    private static final String SECRET = "9vW3zYXvO4xQZbsl0qXOfyYqC1lYa6CvQq1p7dRqH+E=";
+
+    @Param({"ES256", "HS256"})
+    public String algorithm;
+
+    private JwtService jwtService;
+    private Key verificationKey;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        // HS256 stays accepted for the run, as it is before the cutoff
+        String hmacAcceptedUntil = Instant.now().plus(Duration.ofDays(1)).toString();
+        SigningKeyRing keyRing = new SigningKeyRing(SECRET, "", "", true, "", hmacAcceptedUntil, objectMapper);
+        Map<String, Object> claims = Map.of("id", UUID.randomUUID().toString(), "roles", List.of("USER"));
+
+        jwtService = new JwtService(keyRing, Duration.ofMinutes(5));
+        userDetails = User.withUsername("user@example.org").password("").roles("USER").build();
+
+        if (algorithm.equals("HS256")) {
+            // HS256 keys never sign new tokens, so sign one as JWT_SECRET did before the switch
+            SigningKeyRing.SigningKey secretKey = keyRing.find(null);
+            verificationKey = secretKey.verificationKey();
+            token = Jwts.builder()
+                    .setHeaderParam(JwsHeader.KEY_ID, secretKey.kid())
+                    .setClaims(claims)
+                    .setSubject(userDetails.getUsername())
+                    .setId(UUID.randomUUID().toString())
+                    .setIssuedAt(new Date())
+                    .setExpiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()))
+                    .signWith(secretKey.signingKey(), secretKey.algorithm())
+                    .compact();
+        } else {
+            verificationKey = keyRing.active().verificationKey();
+            token = jwtService.generateToken(claims, userDetails, Duration.ofHours(1));
+        }
+    }
+
+    @Benchmark
+    public Object parseOnce() {
+        TokenClaims claims = jwtService.parseToken(token);
+
+        if (!jwtService.isTokenValid(claims, userDetails)) {
+            throw new IllegalStateException("Token rejected");
+        }
+
+        return claims.roles();
+    }
+
+    @Benchmark
+    public Object parsePerClaim() {
+        String email = claim(Claims::getSubject);
+        boolean valid = claim(Claims::getSubject).equals(userDetails.getUsername())
+                && !claim(Claims::getExpiration).before(new Date());
+
+        if (email == null || !valid) {
+            throw new IllegalStateException("Token rejected");
+        }
+
+        claim(claims -> UUID.fromString(claims.get("id", String.class)));
+
+        return claim(claims -> claims.get("roles", List.class));
+    }
+
+    // How JwtService used to resolve each claim
+    private <T> T claim(Function<Claims, T> resolver) {
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(verificationKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+
+        return resolver.apply(claims);
+    }
+}
@@ -1,9 +1,11 @@
 package org.example.authservice.jwt_validators;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,53 +13,90 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.security.Key;
 import java.time.Duration;
 import java.util.*;
-import java.util.function.Function;
 
 @Service
 public class JwtService {
-    @Value("${JWT_SECRET}")
-    private String SECRET;
-
-    public String extractUserEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+    private final SigningKeyRing keyRing;
+    // Parsers are immutable and thread-safe; they look the key up on the ring by kid
+    private final JwtParser parser;
+    private final JwtParser refreshParser;
+    private final Duration publicKeysMaxAge;
+
+    public JwtService(SigningKeyRing keyRing,
+                      @Value("${jwt.jwks-max-age:5m}") Duration publicKeysMaxAge) {
+        this.keyRing = keyRing;
+        this.publicKeysMaxAge = publicKeysMaxAge;
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(resolver(keyRing, false)).build();
+        this.refreshParser = Jwts.parserBuilder().setSigningKeyResolver(resolver(keyRing, true)).build();
     }
 
-    public UUID extractUserId(String token) {
-        return extractClaim(token, claims -> UUID.fromString(claims.get("id", String.class)));
+    private static SigningKeyResolverAdapter resolver(SigningKeyRing keyRing, boolean asymmetricOnly) {
+        return new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                SigningKeyRing.SigningKey key = keyRing.find(header.getKeyId());
+
+                if (key == null) {
+                    throw new SignatureException("Unknown signing key " + header.getKeyId());
+                }
+                // A kid only ever verifies the algorithm it was issued for
+                if (!key.algorithm().getValue().equals(header.getAlgorithm())) {
+                    throw new SignatureException("Key " + key.kid() + " does not sign " + header.getAlgorithm());
+                }
+                if (asymmetricOnly && !key.isPublic()) {
+                    throw new SignatureException("Key " + key.kid() + " is not accepted for refresh tokens");
+                }
+
+                return key.verificationKey();
+            }
+        };
     }
 
-    public List<String> extractUserRoles(String token) {
-        return extractClaim(token, claims -> claims.get("roles", List.class));
+    /**
+     * Verifies the token's signature and expiry once and returns its claims. Throws the
+     * parser's {@code JwtException} subtypes (expired, malformed, bad signature) for
+     * tokens that cannot be trusted.
+     */
+    public TokenClaims parseToken(String token) {
+        return TokenClaims.from(parser.parseClaimsJws(token).getBody());
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Base64.getDecoder().decode(SECRET);
-
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * {@link #parseToken} for refresh tokens, which must be signed with an asymmetric key.
+     * HS256 refresh tokens are refused even before the HS256 cutoff, since a holder of
+     * {@code JWT_SECRET} could otherwise mint sessions of any length.
+     */
+    public TokenClaims parseRefreshToken(String token) {
+        return TokenClaims.from(refreshParser.parseClaimsJws(token).getBody());
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-
-        return claimsResolver.apply(claims);
+    public boolean isTokenValid(TokenClaims claims, UserDetails userDetails) {
+        return claims.email() != null
+                && claims.email().equals(userDetails.getUsername())
+                && !claims.isExpired();
     }
 
-    public String generateToken(UserDetails userDetails, Duration time) {
-        return generateToken(new HashMap<>(), userDetails, time);
+    /**
+     * The public halves of the asymmetric keys on the ring, safe to hand to anyone who
+     * verifies tokens.
+     */
+    public Map<String, Object> getPublicKeys() {
+        return Map.of("keys", keyRing.all().stream()
+                .filter(SigningKeyRing.SigningKey::isPublic)
+                .map(SigningKeyRing.SigningKey::jwk)
+                .toList());
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUserEmail(token);
-
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    /**
+     * How long verifiers may cache {@link #getPublicKeys()}. A key pair has to be published
+     * for at least this long before it becomes active.
+     */
+    public Duration getPublicKeysMaxAge() {
+        return publicKeysMaxAge;
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public String generateToken(UserDetails userDetails, Duration time) {
+        return generateToken(new HashMap<>(), userDetails, time);
     }
 
     public String generateToken(
@@ -66,23 +105,17 @@ public class JwtService {
             Duration time
     ) {
         long expMilliSeconds = System.currentTimeMillis() + time.toMillis();
+        SigningKeyRing.SigningKey key = keyRing.active();
 
         return Jwts
                 .builder()
+                .setHeaderParam(JwsHeader.KEY_ID, key.kid())
                 .setClaims(claims)
                 .setSubject(userDetails.getUsername())
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(expMilliSeconds))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(key.signingKey(), key.algorithm())
                 .compact();
     }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
 }
@@ -0,0 +1,291 @@
+package org.example.authservice.jwt_validators;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keys used to sign and verify tokens, decoded once and identified by {@code kid}.
+ *
+ * <p>Tokens are signed with ES256, so verifiers only need the public half published at
+ * {@code /api/v1/auth/.well-known/jwks.json}. The P-256 key pair comes from
+ * {@code jwt.ec-private-key} / {@code jwt.ec-public-key} (base64 PKCS#8 / X.509 DER). Startup
+ * fails without them unless {@code jwt.ec-generate-dev-key} is set, in which case a key pair
+ * is generated; that only suits a single dev instance since tokens do not survive a restart.
+ *
+ * <p>{@code JWT_SECRET} stays on the ring as an HS256 key under a kid derived from the
+ * secret, so access tokens issued before the switch keep verifying until the cutoff below.
+ * Refresh tokens are only accepted when signed with an EC key, so HS256 refresh tokens stop
+ * working at the switch and those users sign in again. Other services hold that secret too
+ * and could mint tokens with it, so HS256 keys, including those from the keys file, are
+ * only accepted until {@code jwt.hs256-accepted-until}: set it to the ES256 rollout plus
+ * the access token lifetime, and not at all when unset. After the cutoff
+ * {@code JWT_SECRET} can be removed from this service's configuration.
+ * Rotation goes through an optional keys file ({@code jwt.keys-file}):
+ * <pre>
+ * {"active": "es-2024-11",
+ *  "ecKeys": {"es-2024-11": {"privateKey": "&lt;base64&gt;", "publicKey": "&lt;base64&gt;"}},
+ *  "keys": {"2024-08": "&lt;base64 HMAC secret&gt;"}}
+ * </pre>
+ * New tokens are signed with the active key, the configured key pair when unset; it must
+ * be one of the EC keys, as HS256 keys are only kept for verification. Every
+ * listed key is still accepted, so old and new keys overlap until the old one is removed
+ * from the file. Publish a new key pair for at least the JWKS cache lifetime before making
+ * it active. The file is re-read when it changes; a file that fails to load leaves the
+ * current keys in place.
+ */
+@Component
+public class SigningKeyRing {
+    private final Logger logger = LoggerFactory.getLogger(SigningKeyRing.class);
+    private final ObjectMapper objectMapper;
+    private final SigningKey secretKey;
+    private final SigningKey primaryKey;
+    private final Path keysFile;
+    private final Instant hmacAcceptedUntil;
+    private volatile Ring ring;
+    private volatile long loadedModifiedMillis;
+
+    public SigningKeyRing(@Value("${JWT_SECRET:}") String secret,
+                          @Value("${jwt.ec-private-key:}") String ecPrivateKey,
+                          @Value("${jwt.ec-public-key:}") String ecPublicKey,
+                          @Value("${jwt.ec-generate-dev-key:false}") boolean generateDevKey,
+                          @Value("${jwt.keys-file:}") String keysFile,
+                          @Value("${jwt.hs256-accepted-until:}") String hmacAcceptedUntil,
+                          ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.secretKey = secret == null || secret.isBlank() ? null : SigningKey.hmac(null, Base64.getDecoder().decode(secret));
+        this.primaryKey = primaryKey(ecPrivateKey, ecPublicKey, generateDevKey);
+        this.keysFile = keysFile == null || keysFile.isBlank() ? null : Path.of(keysFile);
+        this.hmacAcceptedUntil = hmacAcceptedUntil == null || hmacAcceptedUntil.isBlank() ? null : Instant.parse(hmacAcceptedUntil);
+        this.ring = this.keysFile == null ? defaultRing() : load();
+    }
+
+    public SigningKey active() {
+        return ring.active();
+    }
+
+    /**
+     * The key for {@code kid}, or {@code null} if it is not on the ring or is an HS256 key
+     * past its cutoff. Tokens without a kid predate the ring and were signed with
+     * {@code JWT_SECRET}.
+     */
+    public SigningKey find(String kid) {
+        SigningKey key = kid == null ? secretKey : ring.keys().get(kid);
+
+        if (key != null && !key.isPublic() && !acceptsHmac()) {
+            return null;
+        }
+
+        return key;
+    }
+
+    public boolean acceptsHmac() {
+        return hmacAcceptedUntil != null && Instant.now().isBefore(hmacAcceptedUntil);
+    }
+
+    public Collection<SigningKey> all() {
+        return ring.keys().values();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keys-reload-interval:30s}")
+    public void reloadIfChanged() {
+        if (keysFile == null) {
+            return;
+        }
+
+        try {
+            if (Files.getLastModifiedTime(keysFile).toMillis() != loadedModifiedMillis) {
+                ring = load();
+                logger.info("Reloaded signing keys, active kid {}", ring.active().kid());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to reload signing keys from {}, keeping current keys: {}", keysFile, e.getMessage());
+        }
+    }
+
+    private SigningKey primaryKey(String privateKey, String publicKey, boolean generateDevKey) {
+        boolean hasPrivate = privateKey != null && !privateKey.isBlank();
+        boolean hasPublic = publicKey != null && !publicKey.isBlank();
+
+        if (hasPrivate != hasPublic) {
+            throw new IllegalStateException("jwt.ec-private-key and jwt.ec-public-key must be set together");
+        }
+
+        if (!hasPrivate) {
+            if (!generateDevKey) {
+                throw new IllegalStateException("jwt.ec-private-key and jwt.ec-public-key are required; "
+                        + "set jwt.ec-generate-dev-key to generate a throwaway pair for development");
+            }
+
+            logger.warn("No EC signing key configured, generated one for this instance; tokens will not survive a restart");
+
+            return SigningKey.ec(null, Keys.keyPairFor(SignatureAlgorithm.ES256));
+        }
+
+        return SigningKey.ec(null, decodeKeyPair(privateKey, publicKey));
+    }
+
+    private Ring defaultRing() {
+        Map<String, SigningKey> keys = new LinkedHashMap<>();
+        if (secretKey != null) {
+            keys.put(secretKey.kid(), secretKey);
+        }
+        keys.put(primaryKey.kid(), primaryKey);
+
+        return new Ring(primaryKey, Collections.unmodifiableMap(keys));
+    }
+
+    private Ring load() {
+        try {
+            long modified = Files.getLastModifiedTime(keysFile).toMillis();
+            KeysFile file = objectMapper.readValue(keysFile.toFile(), KeysFile.class);
+            Map<String, SigningKey> keys = new LinkedHashMap<>();
+            if (secretKey != null) {
+                keys.put(secretKey.kid(), secretKey);
+            }
+            keys.put(primaryKey.kid(), primaryKey);
+
+            if (file.keys() != null) {
+                file.keys().forEach((kid, secret) -> keys.put(kid, SigningKey.hmac(kid, Base64.getDecoder().decode(secret))));
+            }
+            if (file.ecKeys() != null) {
+                file.ecKeys().forEach((kid, pair) -> keys.put(kid, SigningKey.ec(kid, decodeKeyPair(pair.privateKey(), pair.publicKey()))));
+            }
+
+            SigningKey active = file.active() == null ? primaryKey : keys.get(file.active());
+
+            if (active == null) {
+                throw new IllegalStateException("Active kid " + file.active() + " is not in the keys file");
+            }
+            if (!active.isPublic()) {
+                throw new IllegalStateException("Active kid " + file.active() + " is an HS256 key; only EC keys can sign tokens");
+            }
+
+            loadedModifiedMillis = modified;
+
+            return new Ring(active, Collections.unmodifiableMap(keys));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read signing keys from " + keysFile, e);
+        }
+    }
+
+    private static KeyPair decodeKeyPair(String privateKey, String publicKey) {
+        try {
+            KeyFactory factory = KeyFactory.getInstance("EC");
+            KeyPair pair = new KeyPair(
+                    factory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKey))),
+                    factory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey)))
+            );
+
+            if (((ECPublicKey) pair.getPublic()).getParams().getCurve().getField().getFieldSize() != 256) {
+                throw new IllegalStateException("ES256 signing keys must be on the P-256 curve");
+            }
+
+            return pair;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decode EC signing key", e);
+        }
+    }
+
+    /**
+     * One signing key with its JWK representation. Kids of the configured keys are derived
+     * from the key material, so every replica agrees on them without configuration. Only
+     * asymmetric keys are published; the JWK of an HMAC key leaves out the secret.
+     */
+    public record SigningKey(String kid,
+                             SignatureAlgorithm algorithm,
+                             Key signingKey,
+                             Key verificationKey,
+                             Map<String, Object> jwk) {
+
+        public boolean isPublic() {
+            return algorithm.isEllipticCurve();
+        }
+
+        static SigningKey hmac(String kid, byte[] secret) {
+            String keyId = kid != null ? kid : "k-" + fingerprint(secret);
+            Key key = Keys.hmacShaKeyFor(secret);
+
+            // No key material: an HMAC secret must never leave this service
+            return new SigningKey(keyId, SignatureAlgorithm.HS256, key, key, Map.of(
+                    "kty", "oct",
+                    "kid", keyId,
+                    "alg", SignatureAlgorithm.HS256.getValue(),
+                    "use", "sig"
+            ));
+        }
+
+        static SigningKey ec(String kid, KeyPair pair) {
+            ECPublicKey publicKey = (ECPublicKey) pair.getPublic();
+            String keyId = kid != null ? kid : "es-" + fingerprint(publicKey.getEncoded());
+
+            return new SigningKey(keyId, SignatureAlgorithm.ES256, pair.getPrivate(), publicKey, Map.of(
+                    "kty", "EC",
+                    "crv", "P-256",
+                    "kid", keyId,
+                    "alg", SignatureAlgorithm.ES256.getValue(),
+                    "use", "sig",
+                    "x", coordinate(publicKey.getW().getAffineX()),
+                    "y", coordinate(publicKey.getW().getAffineY())
+            ));
+        }
+
+        private static String fingerprint(byte[] material) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(material);
+
+                return base64Url(digest).substring(0, 8);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        // JWK coordinates are unsigned and fixed at the field size (32 bytes for P-256)
+        private static String coordinate(BigInteger value) {
+            byte[] bytes = value.toByteArray();
+            byte[] fixed = new byte[32];
+            int length = Math.min(bytes.length, fixed.length);
+            System.arraycopy(bytes, bytes.length - length, fixed, fixed.length - length, length);
+
+            return base64Url(fixed);
+        }
+
+        private static String base64Url(byte[] bytes) {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        }
+    }
+
+    private record Ring(SigningKey active, Map<String, SigningKey> keys) {
+    }
+
+    private record KeysFile(String active, Map<String, String> keys, Map<String, EcKeyPair> ecKeys) {
+    }
+
+    private record EcKeyPair(String privateKey, String publicKey) {
+    }
+}
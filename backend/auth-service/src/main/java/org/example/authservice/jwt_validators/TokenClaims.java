@@ -0,0 +1,42 @@
+package org.example.authservice.jwt_validators;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Claims of a token whose signature and expiry have already been verified. {@code version}
+ * is the user's token version at issue time; tokens from before versions were introduced
+ * are at version 0. {@code tokenId} is the {@code jti}, which older tokens lack.
+ */
+public record TokenClaims(
+        String email,
+        UUID userId,
+        List<String> roles,
+        long version,
+        String tokenId,
+        Date expiration
+) {
+    public static final String VERSION_CLAIM = "ver";
+
+    static TokenClaims from(Claims claims) {
+        String id = claims.get("id", String.class);
+        List<?> roles = claims.get("roles", List.class);
+        Number version = claims.get(VERSION_CLAIM, Number.class);
+
+        return new TokenClaims(
+                claims.getSubject(),
+                id == null ? null : UUID.fromString(id),
+                roles == null ? List.of() : roles.stream().map(String::valueOf).toList(),
+                version == null ? 0 : version.longValue(),
+                claims.getId(),
+                claims.getExpiration()
+        );
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
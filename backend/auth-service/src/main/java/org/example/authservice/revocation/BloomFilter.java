@@ -0,0 +1,93 @@
+package org.example.authservice.revocation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings, safe for concurrent adds and lookups. It never
+ * reports a false negative; false positives stay near the configured rate until more
+ * than {@code expectedInsertions} distinct values have been added, after which it should be
+ * rebuilt.
+ */
+final class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expectedInsertions;
+    private final AtomicLong insertions = new AtomicLong();
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE, (Math.max(bits, 64) + 63) / 64);
+
+        this.words = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L);
+
+        boolean added = false;
+
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (current, update) -> current | update);
+
+            added |= (previous & mask) == 0;
+        }
+
+        // Values already in the filter, like log entries read again on the next tail, set no bit
+        if (added) {
+            insertions.incrementAndGet();
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L);
+
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    boolean isSaturated() {
+        return insertions.get() > expectedInsertions;
+    }
+
+    // FNV-1a over the UTF-8 bytes; mix() spreads it into the two probe hashes
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    // MurmurHash3 64-bit finalizer
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53a87ebL;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
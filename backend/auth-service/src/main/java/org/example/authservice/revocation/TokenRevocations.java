@@ -0,0 +1,201 @@
+package org.example.authservice.revocation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.authservice.jwt_validators.TokenClaims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revoked tokens and users, stored in Redis and fronted by an in-memory Bloom filter so
+ * that checking a token that was never revoked, which is nearly every token, needs no I/O.
+ *
+ * <p>Redis layout, shared with the gateway:
+ * <ul>
+ *     <li>{@code auth:revoked:<jti>}: a single revoked token, expiring with it</li>
+ *     <li>{@code auth:user-version:<id>}: see {@link UserTokenVersions}</li>
+ *     <li>{@code auth:revocations}: sorted set of {@code jti:<jti>} and {@code user:<id>}
+ *     entries scored by revocation time, which instances tail to keep their filters
+ *     current</li>
+ * </ul>
+ * The filter only answers "definitely not revoked"; possible hits are confirmed against
+ * the keys above. Revocations made by other instances are seen within
+ * {@code jwt.revocation.refresh-interval}. Until the first load succeeds every check goes
+ * to Redis. Entries older than the longest token lifetime are dropped from the log when
+ * the filter is rebuilt, since every token they could match has expired by then.
+ */
+@Component
+public class TokenRevocations {
+    private static final String LOG_KEY = "auth:revocations";
+    private static final String REVOKED_PREFIX = "auth:revoked:";
+    private static final String TOKEN_ENTRY = "jti:";
+    private static final String USER_ENTRY = "user:";
+    // Re-reads a little of the log each time, in case instance clocks disagree
+    private static final long CLOCK_SKEW_MILLIS = 5_000;
+
+    private final Logger logger = LoggerFactory.getLogger(TokenRevocations.class);
+    private final StringRedisTemplate redisTemplate;
+    private final UserTokenVersions userTokenVersions;
+    private final Duration retention;
+    private final Duration rebuildInterval;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+    private final Counter localChecks;
+    private final Counter redisChecks;
+
+    private volatile BloomFilter filter;
+    private volatile boolean loaded;
+    private volatile long cursorMillis;
+    private volatile long lastRebuildNanos;
+    private volatile long lastRefreshMillis;
+
+    public TokenRevocations(StringRedisTemplate redisTemplate,
+                            UserTokenVersions userTokenVersions,
+                            MeterRegistry registry,
+                            @Value("${REFRESH_TOKEN_TTL}") Duration retention,
+                            @Value("${jwt.revocation.rebuild-interval:1h}") Duration rebuildInterval,
+                            @Value("${jwt.revocation.expected-entries:100000}") long expectedEntries,
+                            @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.userTokenVersions = userTokenVersions;
+        this.retention = retention;
+        this.rebuildInterval = rebuildInterval;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.localChecks = Counter.builder("tokens.revocation.checks")
+                .description("Revocation checks by where they were answered")
+                .tag("source", "local")
+                .register(registry);
+        this.redisChecks = Counter.builder("tokens.revocation.checks")
+                .description("Revocation checks by where they were answered")
+                .tag("source", "redis")
+                .register(registry);
+        Gauge.builder("tokens.revocation.staleness", this, revocations -> revocations.lastRefreshMillis == 0
+                        ? Double.NaN
+                        : (System.currentTimeMillis() - revocations.lastRefreshMillis) / 1000.0)
+                .description("Seconds since the revocation filter was last refreshed")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    public boolean isRevoked(TokenClaims claims) {
+        String tokenEntry = claims.tokenId() == null ? null : TOKEN_ENTRY + claims.tokenId();
+        String userEntry = claims.userId() == null ? null : USER_ENTRY + claims.userId();
+        BloomFilter current = filter;
+
+        if (loaded
+                && (tokenEntry == null || !current.mightContain(tokenEntry))
+                && (userEntry == null || !current.mightContain(userEntry))) {
+            localChecks.increment();
+
+            return false;
+        }
+
+        redisChecks.increment();
+
+        if (claims.tokenId() != null && Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_PREFIX + claims.tokenId()))) {
+            return true;
+        }
+
+        return claims.userId() != null && claims.version() < userTokenVersions.current(claims.userId());
+    }
+
+    /**
+     * Revokes one token for the rest of its lifetime. Tokens that have already expired or
+     * carry no {@code jti} are left alone.
+     */
+    public void revokeToken(String tokenId, Date expiration) {
+        if (tokenId == null || expiration == null) {
+            return;
+        }
+
+        long remainingMillis = expiration.getTime() - System.currentTimeMillis();
+
+        if (remainingMillis <= 0) {
+            return;
+        }
+
+        redisTemplate.opsForValue().set(REVOKED_PREFIX + tokenId, "1", remainingMillis, TimeUnit.MILLISECONDS);
+        record(TOKEN_ENTRY + tokenId);
+    }
+
+    /**
+     * Revokes every token issued to the user so far.
+     */
+    public void revokeUser(UUID userId) {
+        userTokenVersions.bump(userId);
+        record(USER_ENTRY + userId);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval:1s}")
+    public void refresh() {
+        try {
+            if (!loaded || filter.isSaturated() || System.nanoTime() - lastRebuildNanos > rebuildInterval.toNanos()) {
+                rebuild();
+            } else {
+                cursorMillis = addEntries(filter, cursorMillis - CLOCK_SKEW_MILLIS);
+            }
+
+            lastRefreshMillis = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            logger.error("Failed to refresh token revocations, keeping current filter: {}", e.getMessage());
+        }
+    }
+
+    private void rebuild() {
+        long now = System.currentTimeMillis();
+        redisTemplate.opsForZSet().removeRangeByScore(LOG_KEY, 0, now - retention.toMillis());
+
+        // Grows with the log, so a log past expected-entries does not trigger a rebuild every refresh
+        Long size = redisTemplate.opsForZSet().zCard(LOG_KEY);
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, size == null ? 0 : size * 2), falsePositiveRate);
+        long cursor = addEntries(rebuilt, 0);
+
+        filter = rebuilt;
+        cursorMillis = cursor;
+        lastRebuildNanos = System.nanoTime();
+
+        if (!loaded) {
+            loaded = true;
+            logger.info("Loaded token revocations");
+        }
+    }
+
+    private long addEntries(BloomFilter target, long fromMillis) {
+        Set<ZSetOperations.TypedTuple<String>> entries =
+                redisTemplate.opsForZSet().rangeByScoreWithScores(LOG_KEY, Math.max(0, fromMillis), Double.POSITIVE_INFINITY);
+        long cursor = Math.max(cursorMillis, fromMillis);
+
+        if (entries != null) {
+            for (ZSetOperations.TypedTuple<String> entry : entries) {
+                if (entry.getValue() != null) {
+                    target.add(entry.getValue());
+                }
+                if (entry.getScore() != null) {
+                    cursor = Math.max(cursor, entry.getScore().longValue());
+                }
+            }
+        }
+
+        return cursor;
+    }
+
+    private void record(String entry) {
+        redisTemplate.opsForZSet().add(LOG_KEY, entry, System.currentTimeMillis());
+        // Visible here at once; other instances pick it up on their next refresh
+        filter.add(entry);
+    }
+}
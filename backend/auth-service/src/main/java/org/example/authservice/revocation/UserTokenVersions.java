@@ -0,0 +1,38 @@
+package org.example.authservice.revocation;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Per-user token version kept in Redis. Tokens carry the version current when they were
+ * issued in their {@code ver} claim; bumping it invalidates every token issued to that
+ * user before. Users whose tokens were never invalidated have no key and are at version 0,
+ * so the store only grows with the users it actually needs to track.
+ */
+@Component
+public class UserTokenVersions {
+    private static final String KEY_PREFIX = "auth:user-version:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public UserTokenVersions(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public long current(UUID userId) {
+        String version = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    /**
+     * Invalidates every token issued to the user so far and returns the new version.
+     */
+    public long bump(UUID userId) {
+        Long version = redisTemplate.opsForValue().increment(KEY_PREFIX + userId);
+
+        return version == null ? 0 : version;
+    }
+}
@@ -3,22 +3,26 @@ package org.example.authservice.users;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.example.authservice.jwt_validators.JwtService;
 import org.example.authservice.users.records.AuthUserDTO;
 import org.example.authservice.users.records.CreateUserDTO;
 import org.example.authservice.users.records.UserDTO;
 import org.example.authservice.users.records.UserTokenInfoDTO;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/auth")
 @AllArgsConstructor
 public class UserController {
     private UserService userService;
+    private JwtService jwtService;
 
     @PostMapping("/registration")
     public ResponseEntity<UserDTO> registerUser(@RequestBody @Valid CreateUserDTO userDTO) {
@@ -36,6 +40,17 @@ public class UserController {
         return ResponseEntity.ok(userService.validateToken(accessToken));
     }
 
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> publicKeys() {
+        Map<String, Object> keys = jwtService.getPublicKeys();
+
+        // Conditional GETs against the ETag are answered with 304 by Spring MVC
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwtService.getPublicKeysMaxAge()).cachePublic())
+                .eTag(Integer.toHexString(keys.hashCode()))
+                .body(keys);
+    }
+
     @PostMapping("/refresh")
     public ResponseEntity<UserDTO> refreshToken(
             @CookieValue(value = "refresh_token") String refreshToken) {
@@ -43,12 +58,22 @@ public class UserController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(HttpServletResponse response) {
-        userService.logout(response);
+    public ResponseEntity<?> logout(
+            @CookieValue(value = "access_token", required = false) String accessToken,
+            @CookieValue(value = "refresh_token", required = false) String refreshToken,
+            HttpServletResponse response) {
+        userService.logout(accessToken, refreshToken, response);
 
         return ResponseEntity.ok(Map.of(
                 "message", "Logged out successfully",
                 "timestamp", Instant.now()
         ));
     }
+
+    @PostMapping("/users/{id}/revoke-tokens")
+    public ResponseEntity<Void> revokeUserTokens(@PathVariable UUID id) {
+        userService.revokeUserTokens(id);
+
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -1,16 +1,20 @@
 package org.example.authservice.users;
 
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
 import org.example.authservice.jwt_validators.JwtService;
+import org.example.authservice.jwt_validators.TokenClaims;
 import org.example.authservice.config.exceptions.InternalErrorException;
 import org.example.authservice.config.exceptions.InvalidTokenException;
 import org.example.authservice.config.exceptions.TokenGeneratorException;
 import org.example.authservice.config.exceptions.UserException;
+import org.example.authservice.revocation.TokenRevocations;
+import org.example.authservice.revocation.UserTokenVersions;
 import org.example.authservice.users.records.AuthUserDTO;
 import org.example.authservice.users.records.CreateUserDTO;
 import org.example.authservice.users.records.UserDTO;
@@ -43,6 +47,10 @@ public class UserService {
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
     private final JwtService jwtService;
+    private final UserTokenVersions userTokenVersions;
+    private final TokenRevocations tokenRevocations;
+    // Trust the signed id and roles claims instead of loading the user on every validation
+    private final boolean statelessValidation;
     // My metrics for prometheus
     private final Counter userCreatedCounter;
     private final Counter userErrorCounter;
@@ -55,15 +63,21 @@ public class UserService {
             AuthenticationManager authenticationManager,
             UserRepository userRepository,
             JwtService jwtService,
+            UserTokenVersions userTokenVersions,
+            TokenRevocations tokenRevocations,
             MeterRegistry registry,
             @Value("${ACCESS_TOKEN_TTL}") Duration ACCESS_TOKEN_TTL,
-            @Value("${REFRESH_TOKEN_TTL}") Duration REFRESH_TOKEN_TTL
+            @Value("${REFRESH_TOKEN_TTL}") Duration REFRESH_TOKEN_TTL,
+            @Value("${jwt.validation.stateless:true}") boolean statelessValidation
     ) {
         this.userRepository = userRepository;
         this.authenticationManager = authenticationManager;
         this.passwordEncoder = passwordEncoder;
         this.userDetailsService = userDetailsService;
         this.jwtService = jwtService;
+        this.userTokenVersions = userTokenVersions;
+        this.tokenRevocations = tokenRevocations;
+        this.statelessValidation = statelessValidation;
         this.ACCESS_TOKEN_TTL = ACCESS_TOKEN_TTL;
         this.REFRESH_TOKEN_TTL = REFRESH_TOKEN_TTL;
         this.userCreatedCounter = Counter.builder("users.created.total")
@@ -162,25 +176,44 @@ public class UserService {
 
     public UserTokenInfoDTO validateToken(String token) {
         try {
-            String email = jwtService.extractUserEmail(token);
+            // Signature and expiry are verified once here; the checks below reuse the claims
+            TokenClaims claims = jwtService.parseToken(token);
+            String email = claims.email();
 
-            if (email == null || email.trim().isEmpty()) {
+            if (email == null || email.trim().isEmpty() || claims.userId() == null) {
                 throw new InvalidTokenException("Invalid token");
             }
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            if (statelessValidation) {
+                // The id and roles were signed at issue time; revocation is checked below
+                if (claims.isExpired()) {
+                    throw new InvalidTokenException("Invalid token");
+                }
+            } else {
+                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+
+                if (!jwtService.isTokenValid(claims, userDetails)) {
+                    throw new InvalidTokenException("Invalid token");
+                }
+            }
 
-            if (!jwtService.isTokenValid(token, userDetails)) {
-                throw new InvalidTokenException("Invalid token");
+            if (tokenRevocations.isRevoked(claims)) {
+                throw new InvalidTokenException("Token has been revoked");
             }
 
-            UUID userId = jwtService.extractUserId(token);
-            List<Role> roles = jwtService.extractUserRoles(token)
+            List<Role> roles = claims.roles()
                     .stream()
                     .map(Role::valueOf)
                     .collect(Collectors.toList());
 
-            return new UserTokenInfoDTO(email, userId, roles);
+            return new UserTokenInfoDTO(
+                    email,
+                    claims.userId(),
+                    roles,
+                    claims.expiration() == null ? null : claims.expiration().toInstant(),
+                    claims.tokenId(),
+                    claims.version()
+            );
         } catch (InvalidTokenException ex) {
             logger.error("Token validation failed: ", ex);
             tokenErrorCounter.increment();
@@ -215,13 +248,18 @@ public class UserService {
                 throw new InvalidTokenException("Invalid refresh token");
             }
 
-            String email = jwtService.extractUserEmail(token);
+            TokenClaims claims = jwtService.parseRefreshToken(token);
+            String email = claims.email();
             UserDetails userDetails = userDetailsService.loadUserByUsername(email);
 
-            if (!jwtService.isTokenValid(token, userDetails)) {
+            if (!jwtService.isTokenValid(claims, userDetails)) {
                 throw new InvalidTokenException("Refresh token is invalid or expired");
             }
 
+            if (tokenRevocations.isRevoked(claims)) {
+                throw new InvalidTokenException("Refresh token has been revoked");
+            }
+
             User user = userRepository.findUserByEmail(email)
                     .orElseThrow(() -> new UserException(String.format("User with email %s not found", email)));
             Map<String, String> tokens = generateTokens(user);
@@ -252,7 +290,14 @@ public class UserService {
         }
     }
 
-    public void logout(HttpServletResponse response) {
+    /**
+     * Revokes the session's tokens, so copies of them stop working before they expire, and
+     * clears the cookies.
+     */
+    public void logout(String accessToken, String refreshToken, HttpServletResponse response) {
+        revoke(accessToken);
+        revoke(refreshToken);
+
         Cookie accessCookie = createCookie("access_token", null, 0, true, "/", true);
         Cookie refreshCookie = createCookie("refresh_token", null, 0, true, "/", true);
 
@@ -269,6 +314,7 @@ public class UserService {
 
             claims.put("roles", user.getRoles().stream().map(Role::name).collect(Collectors.toList()));
             claims.put("id", user.getId().toString());
+            claims.put(TokenClaims.VERSION_CLAIM, userTokenVersions.current(user.getId()));
 
             String accessToken = jwtService.generateToken(claims, userDetails, ACCESS_TOKEN_TTL);
             String refreshToken = jwtService.generateToken(claims, userDetails, REFRESH_TOKEN_TTL);
@@ -290,6 +336,27 @@ public class UserService {
         }
     }
 
+    /**
+     * Revokes every token issued to the user so far, e.g. after a password reset.
+     */
+    public void revokeUserTokens(UUID userId) {
+        tokenRevocations.revokeUser(userId);
+    }
+
+    private void revoke(String token) {
+        if (token == null || token.isBlank()) {
+            return;
+        }
+
+        try {
+            TokenClaims claims = jwtService.parseToken(token);
+            tokenRevocations.revokeToken(claims.tokenId(), claims.expiration());
+        } catch (JwtException | IllegalArgumentException ex) {
+            // Expired or forged tokens are already rejected, nothing to revoke
+            logger.debug("Skipping revocation of an unusable token: {}", ex.getMessage());
+        }
+    }
+
     private Cookie createCookie(String name, String value, int maxAge, boolean httpOnly, String path, boolean secure) {
         Cookie cookie = new Cookie(name, value);
         cookie.setPath(path);
@@ -2,13 +2,17 @@ package org.example.authservice.users.records;
 
 import org.example.authservice.users.Role;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
 public record UserTokenInfoDTO(
         String email,
         UUID id,
-        List<Role> roles
+        List<Role> roles,
+        Instant expiresAt,
+        String tokenId,
+        long version
 ) {
 
 }
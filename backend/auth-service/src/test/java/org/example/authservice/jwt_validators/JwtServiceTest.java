@@ -0,0 +1,147 @@
+package org.example.authservice.jwt_validators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class JwtServiceTest {
+    private static final String SECRET = "9vW3zYXvO4xQZbsl0qXOfyYqC1lYa6CvQq1p7dRqH+E=";
+
+    private SigningKeyRing keyRing;
+    private JwtService jwtService;
+    private UserDetails userDetails;
+
+    @BeforeEach
+    void setUp() {
+        keyRing = keyRing(Instant.now().plus(Duration.ofDays(1)));
+        jwtService = new JwtService(keyRing, Duration.ofMinutes(5));
+        userDetails = User.withUsername("user@example.org").password("").roles("USER").build();
+    }
+
+    private static SigningKeyRing keyRing(Instant hmacAcceptedUntil) {
+        KeyPair pair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+
+        return new SigningKeyRing(
+                SECRET,
+                Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded()),
+                Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()),
+                false,
+                "",
+                hmacAcceptedUntil == null ? "" : hmacAcceptedUntil.toString(),
+                new ObjectMapper()
+        );
+    }
+
+    private static Key secretKey() {
+        return Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET));
+    }
+
+    private String signed(String kid, SignatureAlgorithm algorithm, Key key) {
+        var builder = Jwts.builder()
+                .setSubject("user@example.org")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000));
+
+        if (kid != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, kid);
+        }
+
+        return builder.signWith(key, algorithm).compact();
+    }
+
+    @Test
+    @DisplayName("Should issue ES256 tokens under the active kid and parse them back")
+    void roundTrip() {
+        UUID id = UUID.randomUUID();
+        String token = jwtService.generateToken(Map.of("id", id.toString(), "roles", List.of("USER")), userDetails, Duration.ofMinutes(1));
+        TokenClaims claims = jwtService.parseToken(token);
+
+        assertEquals("user@example.org", claims.email());
+        assertEquals(id, claims.userId());
+        assertNotNull(claims.tokenId());
+        assertTrue(jwtService.isTokenValid(claims, userDetails));
+    }
+
+    @Test
+    @DisplayName("Should reject a token whose alg does not match the algorithm of its kid")
+    void algorithmMismatch() {
+        // HMAC over the EC kid, keyed with bytes an attacker could know: the public key
+        byte[] publicKey = keyRing.active().verificationKey().getEncoded();
+        String token = signed(keyRing.active().kid(), SignatureAlgorithm.HS256, Keys.hmacShaKeyFor(publicKey));
+
+        assertThrows(SignatureException.class, () -> jwtService.parseToken(token));
+    }
+
+    @Test
+    @DisplayName("Should reject a token signed under a kid that is not on the ring")
+    void unknownKid() {
+        String token = signed("es-unknown", SignatureAlgorithm.ES256, Keys.keyPairFor(SignatureAlgorithm.ES256).getPrivate());
+
+        assertThrows(SignatureException.class, () -> jwtService.parseToken(token));
+    }
+
+    @Test
+    @DisplayName("Should reject a token signed by a different EC key under the active kid")
+    void wrongKey() {
+        String token = signed(keyRing.active().kid(), SignatureAlgorithm.ES256, Keys.keyPairFor(SignatureAlgorithm.ES256).getPrivate());
+
+        assertThrows(SignatureException.class, () -> jwtService.parseToken(token));
+    }
+
+    @Test
+    @DisplayName("Should publish only the EC keys")
+    void publicKeys() {
+        List<?> keys = (List<?>) jwtService.getPublicKeys().get("keys");
+
+        assertEquals(1, keys.size());
+        assertEquals(keyRing.active().jwk(), keys.get(0));
+    }
+
+    @Test
+    @DisplayName("Should accept HS256 access tokens, with or without a kid, until the cutoff")
+    void hmacBeforeCutoff() {
+        assertEquals("user@example.org", jwtService.parseToken(signed(null, SignatureAlgorithm.HS256, secretKey())).email());
+        assertEquals("user@example.org", jwtService.parseToken(signed(keyRing.find(null).kid(), SignatureAlgorithm.HS256, secretKey())).email());
+    }
+
+    @Test
+    @DisplayName("Should reject HS256 tokens without a cutoff or once it has passed")
+    void hmacAfterCutoff() {
+        String token = signed(null, SignatureAlgorithm.HS256, secretKey());
+
+        for (Instant cutoff : new Instant[]{null, Instant.now().minus(Duration.ofMinutes(1))}) {
+            JwtService service = new JwtService(keyRing(cutoff), Duration.ofMinutes(5));
+
+            assertThrows(SignatureException.class, () -> service.parseToken(token));
+        }
+    }
+
+    @Test
+    @DisplayName("Should only accept refresh tokens signed with an EC key, even before the HS256 cutoff")
+    void refreshTokensAreAsymmetric() {
+        String hmacToken = signed(null, SignatureAlgorithm.HS256, secretKey());
+        String ecToken = jwtService.generateToken(userDetails, Duration.ofMinutes(1));
+
+        assertThrows(SignatureException.class, () -> jwtService.parseRefreshToken(hmacToken));
+        assertEquals("user@example.org", jwtService.parseRefreshToken(ecToken).email());
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.authservice.jwt_validators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+
+public class SigningKeyRingTest {
+    private static final String SECRET = "9vW3zYXvO4xQZbsl0qXOfyYqC1lYa6CvQq1p7dRqH+E=";
+    private static final String ROTATED_SECRET = "Zk1yJ2n0m4cWq8T6dVb3xR5pL7sH9aE1uC0oY4iN2gM=";
+
+    @TempDir
+    Path tempDir;
+
+    private ObjectMapper objectMapper;
+    private KeyPair primaryPair;
+    private KeyPair nextPair;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        primaryPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        nextPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+    }
+
+    private static String encoded(byte[] der) {
+        return Base64.getEncoder().encodeToString(der);
+    }
+
+    private SigningKeyRing ring(String keysFile) {
+        return ring(SECRET, keysFile, Instant.now().plus(Duration.ofDays(1)).toString());
+    }
+
+    private SigningKeyRing ring(String secret, String keysFile, String hmacAcceptedUntil) {
+        return new SigningKeyRing(
+                secret,
+                encoded(primaryPair.getPrivate().getEncoded()),
+                encoded(primaryPair.getPublic().getEncoded()),
+                false,
+                keysFile,
+                hmacAcceptedUntil,
+                objectMapper
+        );
+    }
+
+    private Path writeKeysFile(Map<String, Object> content, long modifiedMillis) throws IOException {
+        Path file = tempDir.resolve("signing-keys.json");
+        Files.writeString(file, objectMapper.writeValueAsString(content));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+
+        return file;
+    }
+
+    private Map<String, Object> ecKeys(String kid, KeyPair pair) {
+        return Map.of(kid, Map.of(
+                "privateKey", encoded(pair.getPrivate().getEncoded()),
+                "publicKey", encoded(pair.getPublic().getEncoded())
+        ));
+    }
+
+    @Test
+    @DisplayName("Should sign with the configured EC key and find every key by kid")
+    void kidLookup() {
+        SigningKeyRing keyRing = ring("");
+        SigningKeyRing.SigningKey active = keyRing.active();
+
+        assertEquals(SignatureAlgorithm.ES256, active.algorithm());
+        assertTrue(active.kid().startsWith("es-"));
+        assertSame(active, keyRing.find(active.kid()));
+        assertEquals(SignatureAlgorithm.HS256, keyRing.find(null).algorithm());
+        assertSame(keyRing.find(null), keyRing.find(keyRing.find(null).kid()));
+        assertNull(keyRing.find("unknown"));
+        assertEquals(2, keyRing.all().size());
+    }
+
+    @Test
+    @DisplayName("Should derive the same kids from the same key material on every instance")
+    void stableKids() {
+        assertEquals(ring("").active().kid(), ring("").active().kid());
+        assertEquals(ring("").find(null).kid(), ring("").find(null).kid());
+    }
+
+    @Test
+    @DisplayName("Should publish only the EC keys as public JWKs")
+    void publicKeys() {
+        SigningKeyRing keyRing = ring("");
+
+        assertTrue(keyRing.active().isPublic());
+        assertFalse(keyRing.find(null).isPublic());
+        assertFalse(keyRing.find(null).jwk().containsKey("k"));
+        assertEquals("EC", keyRing.active().jwk().get("kty"));
+        assertEquals(keyRing.active().kid(), keyRing.active().jwk().get("kid"));
+    }
+
+    @Test
+    @DisplayName("Should sign with the active key from the keys file and keep accepting the others")
+    void rotationThroughKeysFile() throws IOException {
+        Path file = writeKeysFile(Map.of(
+                "active", "es-next",
+                "ecKeys", ecKeys("es-next", nextPair),
+                "keys", Map.of("2024-08", ROTATED_SECRET)
+        ), 1_000);
+        SigningKeyRing keyRing = ring(file.toString());
+        String primaryKid = ring("").active().kid();
+
+        assertEquals("es-next", keyRing.active().kid());
+        assertEquals(nextPair.getPublic(), keyRing.active().verificationKey());
+        assertNotNull(keyRing.find(primaryKid));
+        assertEquals(SignatureAlgorithm.HS256, keyRing.find("2024-08").algorithm());
+        assertEquals(4, keyRing.all().size());
+    }
+
+    @Test
+    @DisplayName("Should refuse a keys file whose active kid is not on the ring")
+    void unknownActiveKid() throws IOException {
+        Path file = writeKeysFile(Map.of("active", "missing"), 1_000);
+
+        assertThrows(IllegalStateException.class, () -> ring(file.toString()));
+    }
+
+    @Test
+    @DisplayName("Should refuse a keys file that makes an HS256 key active")
+    void hmacActiveKid() throws IOException {
+        Path file = writeKeysFile(Map.of("active", "2024-08", "keys", Map.of("2024-08", ROTATED_SECRET)), 1_000);
+        Path secretFile = tempDir.resolve("secret-keys.json");
+        Files.writeString(secretFile, objectMapper.writeValueAsString(Map.of("active", ring("").find(null).kid())));
+
+        assertThrows(IllegalStateException.class, () -> ring(file.toString()));
+        assertThrows(IllegalStateException.class, () -> ring(secretFile.toString()));
+    }
+
+    @Test
+    @DisplayName("Should reload the keys file once it changes")
+    void reloadOnChange() throws IOException {
+        Path file = writeKeysFile(Map.of("ecKeys", ecKeys("es-next", nextPair)), 1_000);
+        SigningKeyRing keyRing = ring(file.toString());
+        String primaryKid = keyRing.active().kid();
+
+        // Unchanged modification time: the file is not read again
+        Files.writeString(file, objectMapper.writeValueAsString(Map.of("active", "es-next", "ecKeys", ecKeys("es-next", nextPair))));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000));
+        keyRing.reloadIfChanged();
+
+        assertEquals(primaryKid, keyRing.active().kid());
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(2_000));
+        keyRing.reloadIfChanged();
+
+        assertEquals("es-next", keyRing.active().kid());
+        assertNotNull(keyRing.find(primaryKid));
+    }
+
+    @Test
+    @DisplayName("Should keep the current keys when a changed keys file fails to load")
+    void reloadFailureKeepsKeys() throws IOException {
+        Path file = writeKeysFile(Map.of("active", "es-next", "ecKeys", ecKeys("es-next", nextPair)), 1_000);
+        SigningKeyRing keyRing = ring(file.toString());
+
+        Files.writeString(file, "{not json");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(2_000));
+        keyRing.reloadIfChanged();
+
+        assertEquals("es-next", keyRing.active().kid());
+    }
+
+    @Test
+    @DisplayName("Should refuse a private key without its public half")
+    void halfKeyPair() {
+        assertThrows(IllegalStateException.class, () -> new SigningKeyRing(
+                SECRET, encoded(primaryPair.getPrivate().getEncoded()), "", false, "", "", objectMapper));
+    }
+
+    @Test
+    @DisplayName("Should refuse to start without an EC key unless a dev key may be generated")
+    void missingEcKey() {
+        assertThrows(IllegalStateException.class, () -> new SigningKeyRing(SECRET, "", "", false, "", "", objectMapper));
+
+        SigningKeyRing keyRing = new SigningKeyRing(SECRET, "", "", true, "", "", objectMapper);
+
+        assertEquals(SignatureAlgorithm.ES256, keyRing.active().algorithm());
+    }
+
+    @Test
+    @DisplayName("Should not accept HS256 keys without a cutoff or once it has passed")
+    void hmacCutoff() throws IOException {
+        Path file = writeKeysFile(Map.of("keys", Map.of("2024-08", ROTATED_SECRET)), 1_000);
+        String secretKid = ring("").find(null).kid();
+
+        for (String cutoff : new String[]{"", Instant.now().minus(Duration.ofMinutes(1)).toString()}) {
+            SigningKeyRing keyRing = ring(SECRET, file.toString(), cutoff);
+
+            assertFalse(keyRing.acceptsHmac());
+            assertNull(keyRing.find(null));
+            assertNull(keyRing.find(secretKid));
+            assertNull(keyRing.find("2024-08"));
+            assertNotNull(keyRing.find(keyRing.active().kid()));
+        }
+
+        assertNotNull(ring(SECRET, file.toString(), Instant.now().plus(Duration.ofMinutes(1)).toString()).find("2024-08"));
+    }
+
+    @Test
+    @DisplayName("Should run without JWT_SECRET once it has been dropped")
+    void withoutSecret() {
+        SigningKeyRing keyRing = ring("", "", "");
+
+        assertNull(keyRing.find(null));
+        assertEquals(1, keyRing.all().size());
+        assertEquals(SignatureAlgorithm.ES256, keyRing.active().algorithm());
+    }
+}
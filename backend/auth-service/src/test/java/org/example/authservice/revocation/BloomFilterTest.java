@@ -0,0 +1,72 @@
+package org.example.authservice.revocation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BloomFilterTest {
+    @Test
+    @DisplayName("Should find every value that was added")
+    void noFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("jti:" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("jti:" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep false positives near the configured rate")
+    void falsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("jti:" + i);
+        }
+
+        int falsePositives = 0;
+
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("user:" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // 1% expected; allow for variance without letting a broken hash through
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Should report saturation once more values than expected were added")
+    void saturation() {
+        BloomFilter filter = new BloomFilter(2, 0.01);
+
+        assertFalse(filter.mightContain("jti:a"));
+
+        filter.add("jti:a");
+        filter.add("jti:b");
+
+        assertFalse(filter.isSaturated());
+
+        filter.add("jti:c");
+
+        assertTrue(filter.isSaturated());
+    }
+
+    @Test
+    @DisplayName("Should not count a value added again towards saturation")
+    void repeatedAdds() {
+        BloomFilter filter = new BloomFilter(2, 0.01);
+
+        for (int i = 0; i < 10; i++) {
+            filter.add("jti:a");
+            filter.add("jti:b");
+        }
+
+        assertFalse(filter.isSaturated());
+    }
+}
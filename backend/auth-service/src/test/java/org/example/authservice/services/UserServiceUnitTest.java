@@ -9,6 +9,9 @@ import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
 import org.example.authservice.jwt_validators.JwtService;
+import org.example.authservice.jwt_validators.TokenClaims;
+import org.example.authservice.revocation.TokenRevocations;
+import org.example.authservice.revocation.UserTokenVersions;
 import org.example.authservice.users.Role;
 import org.example.authservice.users.User;
 import org.example.authservice.users.UserRepository;
@@ -48,6 +51,8 @@ public class UserServiceUnitTest {
     @Mock private UserDetailsService userDetailsService;
     @Mock private AuthenticationManager authenticationManager;
     @Mock private JwtService jwtService;
+    @Mock private UserTokenVersions userTokenVersions;
+    @Mock private TokenRevocations tokenRevocations;
     @Mock private UserDetails userDetails;
 
     private UserService userService;
@@ -57,15 +62,22 @@ public class UserServiceUnitTest {
     void setUp() {
         meterRegistry = new SimpleMeterRegistry();
 
-        userService = new UserService(
+        userService = userService(false);
+    }
+
+    private UserService userService(boolean statelessValidation) {
+        return new UserService(
                 passwordEncoder,
                 userDetailsService,
                 authenticationManager,
                 userRepository,
                 jwtService,
+                userTokenVersions,
+                tokenRevocations,
                 meterRegistry,
                 Duration.ofMinutes(15),
-                Duration.ofDays(7)
+                Duration.ofDays(7),
+                statelessValidation
         );
     }
 
@@ -207,13 +219,11 @@ public class UserServiceUnitTest {
     @DisplayName("Should successfully validate received tokens")
     void shouldSuccessfullyValidateReceivedTokens() {
         String token = "testToken";
-        UserTokenInfoDTO userTokenInfoDTO = new UserTokenInfoDTO("qwerty@gmail.com", UUID.nameUUIDFromBytes("123qwe".getBytes()), List.of(Role.USER));
+        UserTokenInfoDTO userTokenInfoDTO = new UserTokenInfoDTO("qwerty@gmail.com", UUID.nameUUIDFromBytes("123qwe".getBytes()), List.of(Role.USER), null, "jti-123", 0);
 
-        when(jwtService.extractUserEmail(token)).thenReturn("qwerty@gmail.com");
+        when(jwtService.parseToken(token)).thenReturn(claims("qwerty@gmail.com"));
         when(userDetailsService.loadUserByUsername("qwerty@gmail.com")).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, userDetails)).thenReturn(true);
-        when(jwtService.extractUserId(token)).thenReturn(UUID.nameUUIDFromBytes("123qwe".getBytes()));
-        when(jwtService.extractUserRoles(token)).thenReturn(List.of("USER"));
+        when(jwtService.isTokenValid(any(TokenClaims.class), eq(userDetails))).thenReturn(true);
 
         assertEquals(userTokenInfoDTO, userService.validateToken(token));
 
@@ -226,7 +236,7 @@ public class UserServiceUnitTest {
     void shouldThrowInvalidTokenExceptionIfEmailIsNull() {
         String token = "testToken";
 
-        when(jwtService.extractUserEmail(token)).thenReturn(null);
+        when(jwtService.parseToken(token)).thenReturn(claims(null));
 
         assertThrows(InvalidTokenException.class, () -> userService.validateToken(token));
 
@@ -241,16 +251,15 @@ public class UserServiceUnitTest {
         String token = "testToken";
         String email = "test@gmail.com";
 
-        when(jwtService.extractUserEmail(token)).thenReturn(email);
+        when(jwtService.parseToken(token)).thenReturn(claims(email));
         when(userDetailsService.loadUserByUsername(email)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, userDetails)).thenReturn(false);
+        when(jwtService.isTokenValid(any(TokenClaims.class), eq(userDetails))).thenReturn(false);
 
         assertThrows(InvalidTokenException.class, () -> userService.validateToken(token));
 
         verify(userDetailsService, times(1)).loadUserByUsername(email);
-        verify(jwtService, times(1)).extractUserEmail(token);
-        verify(jwtService, times(1)).isTokenValid(token, userDetails);
-        verify(jwtService, never()).extractUserId(token);
+        verify(jwtService, times(1)).parseToken(token);
+        verify(jwtService, times(1)).isTokenValid(any(TokenClaims.class), eq(userDetails));
 
         assertEquals(1.0, meterRegistry.counter("tokens.error.total").count());
     }
@@ -259,18 +268,46 @@ public class UserServiceUnitTest {
     @DisplayName("Should throw ExpiredJwtException if the token is expired")
     void shouldThrowExpiredJwtExceptionIfTokenIsExpired() {
         String token = "testToken";
-        String email = "test@gmail.com";
 
-        when(jwtService.extractUserEmail(token)).thenReturn(email);
-        when(userDetailsService.loadUserByUsername(email)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, userDetails)).thenThrow(ExpiredJwtException.class);
+        when(jwtService.parseToken(token)).thenThrow(ExpiredJwtException.class);
 
         assertThrows(ExpiredJwtException.class, () -> userService.validateToken(token));
 
-        verify(jwtService, times(1)).extractUserEmail(token);
-        verify(userDetailsService, times(1)).loadUserByUsername(email);
-        verify(jwtService, times(1)).isTokenValid(token, userDetails);
-        verify(jwtService, never()).extractUserId(token);
+        verify(jwtService, times(1)).parseToken(token);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(jwtService, never()).isTokenValid(any(TokenClaims.class), any(UserDetails.class));
+
+        assertEquals(1.0, meterRegistry.counter("tokens.error.total").count());
+    }
+
+    @Test
+    @DisplayName("Should validate tokens from their claims without loading the user")
+    void shouldValidateTokensStatelessly() {
+        String token = "testToken";
+        UserTokenInfoDTO userTokenInfoDTO = new UserTokenInfoDTO("qwerty@gmail.com", UUID.nameUUIDFromBytes("123qwe".getBytes()), List.of(Role.USER), null, "jti-123", 0);
+
+        when(jwtService.parseToken(token)).thenReturn(claims("qwerty@gmail.com"));
+
+        assertEquals(userTokenInfoDTO, userService(true).validateToken(token));
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(userRepository, never()).findUserByEmail(anyString());
+        verify(tokenRevocations, times(1)).isRevoked(any(TokenClaims.class));
+
+        assertEquals(0.0, meterRegistry.counter("tokens.error.total").count());
+    }
+
+    @Test
+    @DisplayName("Should reject revoked tokens")
+    void shouldRejectRevokedTokens() {
+        String token = "testToken";
+
+        when(jwtService.parseToken(token)).thenReturn(claims("qwerty@gmail.com"));
+        when(tokenRevocations.isRevoked(any(TokenClaims.class))).thenReturn(true);
+
+        assertThrows(InvalidTokenException.class, () -> userService(true).validateToken(token));
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
 
         assertEquals(1.0, meterRegistry.counter("tokens.error.total").count());
     }
@@ -288,9 +325,9 @@ public class UserServiceUnitTest {
 
         UserDTO dto = UserDTO.fromEntity(user, "accessToken", "refreshToken");
 
-        when(jwtService.extractUserEmail(token)).thenReturn(email);
+        when(jwtService.parseRefreshToken(token)).thenReturn(claims(email));
         when(userDetailsService.loadUserByUsername(email)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, userDetails)).thenReturn(true);
+        when(jwtService.isTokenValid(any(TokenClaims.class), eq(userDetails))).thenReturn(true);
         when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
         when(jwtService.generateToken(anyMap(), eq(userDetails), any(Duration.class)))
                 .thenReturn("accessToken")
@@ -298,9 +335,9 @@ public class UserServiceUnitTest {
 
         assertEquals(dto, userService.refresh(token));
 
-        verify(jwtService, times(1)).extractUserEmail(token);
+        verify(jwtService, times(1)).parseRefreshToken(token);
         verify(userDetailsService, times(2)).loadUserByUsername(email);
-        verify(jwtService, times(1)).isTokenValid(token, userDetails);
+        verify(jwtService, times(1)).isTokenValid(any(TokenClaims.class), eq(userDetails));
         verify(jwtService, times(2)).generateToken(anyMap(), eq(userDetails), any(Duration.class));
 
         assertEquals(0.0, meterRegistry.counter("tokens.error.total").count());
@@ -313,7 +350,7 @@ public class UserServiceUnitTest {
     void shouldThrowInvalidTokenExceptionIfTokenIsNullRefresh() {
         assertThrows(InvalidTokenException.class, () -> userService.refresh(null));
 
-        verify(jwtService, never()).extractUserEmail(any());
+        verify(jwtService, never()).parseRefreshToken(any());
         verify(userDetailsService, never()).loadUserByUsername(any());
 
         assertEquals(1.0, meterRegistry.counter("tokens.error.total").count());
@@ -325,16 +362,15 @@ public class UserServiceUnitTest {
         String token = "testToken";
         String email = "test@gmail.com";
 
-        when(jwtService.extractUserEmail(token)).thenReturn(email);
+        when(jwtService.parseRefreshToken(token)).thenReturn(claims(email));
         when(userDetailsService.loadUserByUsername(email)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, userDetails)).thenReturn(false);
+        when(jwtService.isTokenValid(any(TokenClaims.class), eq(userDetails))).thenReturn(false);
 
         assertThrows(InvalidTokenException.class, () -> userService.refresh(token));
 
-        verify(jwtService, times(1)).extractUserEmail(token);
+        verify(jwtService, times(1)).parseRefreshToken(token);
         verify(userDetailsService, times(1)).loadUserByUsername(email);
-        verify(jwtService, times(1)).isTokenValid(token, userDetails);
-        verify(jwtService, never()).extractUserId(token);
+        verify(jwtService, times(1)).isTokenValid(any(TokenClaims.class), eq(userDetails));
 
         assertEquals(1.0, meterRegistry.counter("tokens.error.total").count());
     }
@@ -345,16 +381,16 @@ public class UserServiceUnitTest {
         String token = "testToken";
         String email = "test@gmail.com";
 
-        when(jwtService.extractUserEmail(token)).thenReturn(email);
+        when(jwtService.parseRefreshToken(token)).thenReturn(claims(email));
         when(userDetailsService.loadUserByUsername(email)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, userDetails)).thenReturn(true);
+        when(jwtService.isTokenValid(any(TokenClaims.class), eq(userDetails))).thenReturn(true);
         when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
 
         assertThrows(UserException.class, () -> userService.refresh(token));
 
-        verify(jwtService, times(1)).extractUserEmail(token);
+        verify(jwtService, times(1)).parseRefreshToken(token);
         verify(userDetailsService, times(1)).loadUserByUsername(email);
-        verify(jwtService, times(1)).isTokenValid(token, userDetails);
+        verify(jwtService, times(1)).isTokenValid(any(TokenClaims.class), eq(userDetails));
 
         assertEquals(1.0, meterRegistry.counter("users.error.total").count());
     }
@@ -365,13 +401,13 @@ public class UserServiceUnitTest {
         String token = "testToken";
         String email = "test@gmail.com";
 
-        when(jwtService.extractUserEmail(token)).thenReturn(email);
+        when(jwtService.parseRefreshToken(token)).thenReturn(claims(email));
         when(userDetailsService.loadUserByUsername(email)).thenThrow(UsernameNotFoundException.class);
 
         assertThrows(UsernameNotFoundException.class, () -> userService.refresh(token));
 
-        verify(jwtService, times(1)).extractUserEmail(token);
-        verify(jwtService, never()).isTokenValid(token, userDetails);
+        verify(jwtService, times(1)).parseRefreshToken(token);
+        verify(jwtService, never()).isTokenValid(any(TokenClaims.class), eq(userDetails));
         verify(userRepository, never()).findUserByEmail(email);
 
         assertEquals(1.0, meterRegistry.counter("users.error.total").count());
@@ -389,8 +425,8 @@ public class UserServiceUnitTest {
         user.setEmail(email);
         user.setId(UUID.randomUUID());
 
-        when(jwtService.extractUserEmail(token)).thenReturn(email);
-        when(jwtService.isTokenValid(token, userDetails)).thenReturn(true);
+        when(jwtService.parseRefreshToken(token)).thenReturn(claims(email));
+        when(jwtService.isTokenValid(any(TokenClaims.class), eq(userDetails))).thenReturn(true);
         when(userDetailsService.loadUserByUsername(email)).thenReturn(userDetails);
         when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
         when(jwtService.generateToken(anyMap(), eq(userDetails), any(Duration.class))).thenThrow(RuntimeException.class);
@@ -399,9 +435,9 @@ public class UserServiceUnitTest {
 
 
         verify(jwtService, times(1)).generateToken(anyMap(), eq(userDetails), any(Duration.class));
-        verify(jwtService, times(1)).extractUserEmail(token);
+        verify(jwtService, times(1)).parseRefreshToken(token);
         verify(userDetailsService, times(2)).loadUserByUsername(email);
-        verify(jwtService, times(1)).isTokenValid(token, userDetails);
+        verify(jwtService, times(1)).isTokenValid(any(TokenClaims.class), eq(userDetails));
 
         assertEquals(1.0, meterRegistry.counter("auth-service.internal-error.total").count());
         assertEquals(1.0, meterRegistry.counter("tokens.error.total").count());
@@ -413,7 +449,7 @@ public class UserServiceUnitTest {
         HttpServletResponse response = mock(HttpServletResponse.class);
         ArgumentCaptor<Cookie> cookieCaptor = ArgumentCaptor.forClass(Cookie.class);
 
-        userService.logout(response);
+        userService.logout(null, null, response);
 
         verify(response, times(2)).addCookie(cookieCaptor.capture());
 
@@ -440,6 +476,22 @@ public class UserServiceUnitTest {
         assertTrue(refreshCookie.getSecure());
     }
 
+    @Test
+    @DisplayName("Should revoke the session's tokens when logout")
+    void shouldRevokeTokensWhenLogout() {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        TokenClaims accessClaims = claims("qwerty@gmail.com");
+
+        when(jwtService.parseToken("accessToken")).thenReturn(accessClaims);
+        when(jwtService.parseToken("refreshToken")).thenThrow(ExpiredJwtException.class);
+
+        userService.logout("accessToken", "refreshToken", response);
+
+        verify(tokenRevocations, times(1)).revokeToken(accessClaims.tokenId(), accessClaims.expiration());
+        verify(tokenRevocations, times(1)).revokeToken(any(), any());
+        verify(response, times(2)).addCookie(any(Cookie.class));
+    }
+
     private User createTestUser(String name, String email)
     {
         User user = new User();
@@ -466,4 +518,8 @@ public class UserServiceUnitTest {
                 "qwerty"
         );
     }
+
+    private TokenClaims claims(String email) {
+        return new TokenClaims(email, UUID.nameUUIDFromBytes("123qwe".getBytes()), List.of("USER"), 0, "jti-123", null);
+    }
 }
@@ -0,0 +1,47 @@
+package com.example.banking_api.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Service
+public class AuthServiceClient {
+    private final RestClient restClient;
+    private final String INTERNAL_SERVICE_SECRET;
+
+    public AuthServiceClient(@Value("${BASE_AUTH_SERVICE_URL:http://auth-service:8081}") String baseAuthServiceUrl,
+                             @Value("${INTERNAL_SERVICE_SECRET}") String internalServiceSecret,
+                             @Value("${auth-service.connect-timeout:2s}") Duration connectTimeout,
+                             @Value("${auth-service.read-timeout:5s}") Duration readTimeout) {
+        // Callers wait inside a database transaction, so a hung auth-service must not hold it open
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+
+        this.restClient = RestClient.builder()
+                .baseUrl(baseAuthServiceUrl)
+                .requestFactory(requestFactory)
+                .build();
+        this.INTERNAL_SERVICE_SECRET = internalServiceSecret;
+    }
+
+    /**
+     * Revokes every access and refresh token issued to the user so far. Throws if
+     * auth-service cannot be reached or refuses, so callers can roll back whatever made the
+     * tokens untrustworthy. Callers revoke before their transaction commits: if the commit
+     * then fails, the user has only lost their sessions, whereas revoking after commit
+     * would leave sessions alive whenever the call failed.
+     */
+    public void revokeUserTokens(UUID userId) {
+        restClient
+                .post()
+                .uri("/api/v1/auth/users/{id}/revoke-tokens", userId)
+                .header("X-Internal-Request", INTERNAL_SERVICE_SECRET)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
@@ -1,77 +1,68 @@
 package com.example.banking_api.jwts;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.time.Duration;
-import java.util.Base64;
 import java.util.Date;
-import java.util.function.Function;
 
 @Service
 public class ResetTokenActions {
-    @Value("${JWT_SECRET}")
-    private String JWT_SECRET;
+    private final SigningKeyRing keyRing;
+    // The parser is immutable and thread-safe; it looks the key up on the ring by kid
+    private final JwtParser parser;
+
+    public ResetTokenActions(SigningKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        SigningKeyRing.SigningKey key = keyRing.find(header.getKeyId());
+
+                        if (key == null) {
+                            throw new SignatureException("Unknown signing key " + header.getKeyId());
+                        }
+
+                        return key.key();
+                    }
+                })
+                .build();
+    }
 
     public String generatePasswordResetToken(String email, Duration time) {
         long expMilliSeconds = System.currentTimeMillis() + time.toMillis();
+        SigningKeyRing.SigningKey key = keyRing.active();
 
         return Jwts
                 .builder()
+                .setHeaderParam(JwsHeader.KEY_ID, key.kid())
                 .setSubject(email)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(expMilliSeconds))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(key.key(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public String getEmailFromToken(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return extractAllClaims(token).getSubject();
     }
 
     public boolean isTokenValid(String token, String email) {
-        final String tokenEmail = getEmailFromToken(token);
-
-        return (tokenEmail.equals(email) && !isTokenExpired(token));
-    }
-
-    private Key getSigningKey() {
-        byte[] keyBytes = Base64.getDecoder().decode(JWT_SECRET);
-
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        // Verified once; subject and expiry are read from the same claims
         final Claims claims = extractAllClaims(token);
 
-        return claimsResolver.apply(claims);
+        return (claims.getSubject().equals(email) && !claims.getExpiration().before(new Date()));
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 }
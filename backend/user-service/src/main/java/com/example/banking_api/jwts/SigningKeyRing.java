@@ -0,0 +1,136 @@
+package com.example.banking_api.jwts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HMAC keys used to sign and verify password reset tokens, decoded once and identified
+ * by {@code kid}. {@code JWT_SECRET} is always accepted (and used for tokens without a
+ * kid), and the optional {@code jwt.keys-file} adds rotating keys plus the active one,
+ * re-read when the file changes:
+ * <pre>
+ * {"active": "2024-08", "keys": {"2024-08": "&lt;base64 HMAC secret&gt;"}}
+ * </pre>
+ * This is a file of its own ({@code JWT_RESET_KEYS_FILE}), not auth-service's
+ * {@code JWT_KEYS_FILE}: there the active kid names an ES256 key pair, and reset tokens
+ * are only ever signed with HMAC.
+ */
+@Component
+public class SigningKeyRing {
+    private final Logger logger = LoggerFactory.getLogger(SigningKeyRing.class);
+    private final ObjectMapper objectMapper;
+    private final SigningKey secretKey;
+    private final Path keysFile;
+    private volatile Ring ring;
+    private volatile long loadedModifiedMillis;
+
+    public SigningKeyRing(@Value("${JWT_SECRET}") String secret,
+                          @Value("${jwt.keys-file:}") String keysFile,
+                          ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.secretKey = SigningKey.of(null, Base64.getDecoder().decode(secret));
+        this.keysFile = keysFile == null || keysFile.isBlank() ? null : Path.of(keysFile);
+        this.ring = this.keysFile == null ? new Ring(secretKey, Map.of(secretKey.kid(), secretKey)) : load();
+    }
+
+    public SigningKey active() {
+        return ring.active();
+    }
+
+    /**
+     * The key for {@code kid}, or {@code null} if it is not on the ring. Tokens without a
+     * kid predate the ring and were signed with {@code JWT_SECRET}.
+     */
+    public SigningKey find(String kid) {
+        return kid == null ? secretKey : ring.keys().get(kid);
+    }
+
+    public Collection<SigningKey> all() {
+        return ring.keys().values();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keys-reload-interval:30s}")
+    public void reloadIfChanged() {
+        if (keysFile == null) {
+            return;
+        }
+
+        try {
+            if (Files.getLastModifiedTime(keysFile).toMillis() != loadedModifiedMillis) {
+                ring = load();
+                logger.info("Reloaded signing keys, active kid {}", ring.active().kid());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to reload signing keys from {}, keeping current keys: {}", keysFile, e.getMessage());
+        }
+    }
+
+    private Ring load() {
+        try {
+            long modified = Files.getLastModifiedTime(keysFile).toMillis();
+            KeysFile file = objectMapper.readValue(keysFile.toFile(), KeysFile.class);
+            Map<String, SigningKey> keys = new LinkedHashMap<>();
+            keys.put(secretKey.kid(), secretKey);
+
+            if (file.keys() != null) {
+                file.keys().forEach((kid, secret) -> keys.put(kid, SigningKey.of(kid, Base64.getDecoder().decode(secret))));
+            }
+
+            SigningKey active = file.active() == null ? secretKey : keys.get(file.active());
+
+            if (active == null) {
+                throw new IllegalStateException("Active kid " + file.active() + " is not in the keys file");
+            }
+
+            loadedModifiedMillis = modified;
+
+            return new Ring(active, Collections.unmodifiableMap(keys));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read signing keys from " + keysFile, e);
+        }
+    }
+
+    /**
+     * One signing key. The kid of {@code JWT_SECRET} is derived from the secret itself, so
+     * every replica agrees on it without configuration.
+     */
+    public record SigningKey(String kid, SecretKey key, byte[] secret) {
+
+        static SigningKey of(String kid, byte[] secret) {
+            return new SigningKey(kid != null ? kid : derivedKid(secret), Keys.hmacShaKeyFor(secret), secret);
+        }
+
+        private static String derivedKid(byte[] secret) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret);
+
+                return "k-" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 8);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+
+    private record Ring(SigningKey active, Map<String, SigningKey> keys) {
+    }
+
+    private record KeysFile(String active, Map<String, String> keys) {
+    }
+}
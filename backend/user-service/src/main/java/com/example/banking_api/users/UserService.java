@@ -1,5 +1,6 @@
 package com.example.banking_api.users;
 
+import com.example.banking_api.auth.AuthServiceClient;
 import com.example.banking_api.config.exceptions.TokenValidationException;
 import com.example.banking_api.config.exceptions.UserNotFoundException;
 import com.example.banking_api.config.exceptions.UserValidationException;
@@ -38,6 +39,7 @@ public class UserService {
     private final ResetTokenActions resetTokenActions;
     private final String USER_SERVICE_RESET_PASSWORD_LINK;
     private final TokenManager tokenManager;
+    private final AuthServiceClient authServiceClient;
     //My metrics
     private final Counter userErrorCounter;
     private final Counter emailCounter;
@@ -51,13 +53,15 @@ public class UserService {
             ResetTokenActions resetTokenActions,
             TokenManager tokenManager,
             @Value("${USER_SERVICE_RESET_PASSWORD_LINK}") String USER_SERVICE_RESET_PASSWORD_LINK,
-            UserEmailRabbitService userEmailRabbitService) {
+            UserEmailRabbitService userEmailRabbitService,
+            AuthServiceClient authServiceClient) {
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
         this.userEmailRabbitService = userEmailRabbitService;
         this.resetTokenActions = resetTokenActions;
         this.USER_SERVICE_RESET_PASSWORD_LINK = USER_SERVICE_RESET_PASSWORD_LINK;
         this.tokenManager = tokenManager;
+        this.authServiceClient = authServiceClient;
         this.userErrorCounter = Counter.builder("user-service.user.errors.counter")
                 .description("Error counter for user service")
                 .register(meterRegistry);
@@ -200,6 +204,9 @@ public class UserService {
 
             user.setPassword(passwordEncoder.encode(updateUserDTO.password()));
             User savedUser = userRepository.save(user);
+            // Sessions opened with the old password end here, before commit: a failure surfaces
+            // as a RuntimeException, rolling the change back and leaving the reset token unused
+            authServiceClient.revokeUserTokens(savedUser.getId());
 
             tokenManager.markTokenAsUsed(email, token, 15, TimeUnit.MINUTES);
 
@@ -0,0 +1,107 @@
+package com.example.banking_api.jwts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+public class SigningKeyRingTest {
+    private static final String SECRET = "9vW3zYXvO4xQZbsl0qXOfyYqC1lYa6CvQq1p7dRqH+E=";
+    private static final String ROTATED_SECRET = "Zk1yJ2n0m4cWq8T6dVb3xR5pL7sH9aE1uC0oY4iN2gM=";
+
+    @TempDir
+    Path tempDir;
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+    }
+
+    private Path writeKeysFile(Map<String, Object> content, long modifiedMillis) throws IOException {
+        Path file = tempDir.resolve("signing-keys.json");
+        Files.writeString(file, objectMapper.writeValueAsString(content));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+
+        return file;
+    }
+
+    @Test
+    @DisplayName("Should sign with JWT_SECRET under a derived kid when there is no keys file")
+    void kidLookup() {
+        SigningKeyRing keyRing = new SigningKeyRing(SECRET, "", objectMapper);
+
+        assertTrue(keyRing.active().kid().startsWith("k-"));
+        assertSame(keyRing.active(), keyRing.find(null));
+        assertSame(keyRing.active(), keyRing.find(keyRing.active().kid()));
+        assertNull(keyRing.find("unknown"));
+        assertEquals(keyRing.active().kid(), new SigningKeyRing(SECRET, "", objectMapper).active().kid());
+    }
+
+    @Test
+    @DisplayName("Should sign with the active key from the keys file and keep accepting JWT_SECRET")
+    void rotationThroughKeysFile() throws IOException {
+        Path file = writeKeysFile(Map.of("active", "2024-08", "keys", Map.of("2024-08", ROTATED_SECRET)), 1_000);
+        SigningKeyRing keyRing = new SigningKeyRing(SECRET, file.toString(), objectMapper);
+
+        assertEquals("2024-08", keyRing.active().kid());
+        assertArrayEquals(Base64.getDecoder().decode(ROTATED_SECRET), keyRing.active().secret());
+        assertArrayEquals(Base64.getDecoder().decode(SECRET), keyRing.find(null).secret());
+        assertEquals(2, keyRing.all().size());
+    }
+
+    @Test
+    @DisplayName("Should reload the keys file once it changes and keep the keys when it fails to load")
+    void reloadOnChange() throws IOException {
+        Path file = writeKeysFile(Map.of("keys", Map.of("2024-08", ROTATED_SECRET)), 1_000);
+        SigningKeyRing keyRing = new SigningKeyRing(SECRET, file.toString(), objectMapper);
+
+        assertSame(keyRing.find(null), keyRing.active());
+
+        writeKeysFile(Map.of("active", "2024-08", "keys", Map.of("2024-08", ROTATED_SECRET)), 2_000);
+        keyRing.reloadIfChanged();
+
+        assertEquals("2024-08", keyRing.active().kid());
+
+        Files.writeString(file, "{not json");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(3_000));
+        keyRing.reloadIfChanged();
+
+        assertEquals("2024-08", keyRing.active().kid());
+    }
+
+    @Test
+    @DisplayName("Should verify reset tokens by kid and reject unknown kids")
+    void resetTokensByKid() throws IOException {
+        Path file = writeKeysFile(Map.of("active", "2024-08", "keys", Map.of("2024-08", ROTATED_SECRET)), 1_000);
+        SigningKeyRing keyRing = new SigningKeyRing(SECRET, file.toString(), objectMapper);
+        ResetTokenActions actions = new ResetTokenActions(keyRing);
+        String token = actions.generatePasswordResetToken("user@example.org", Duration.ofMinutes(5));
+        String unknown = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, "2023-01")
+                .setSubject("user@example.org")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(keyRing.active().key(), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertTrue(actions.isTokenValid(token, "user@example.org"));
+        assertThrows(SignatureException.class, () -> actions.getEmailFromToken(unknown));
+    }
+}
@@ -2,6 +2,7 @@ package com.example.banking_api.services;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.example.banking_api.auth.AuthServiceClient;
 import com.example.banking_api.config.exceptions.TokenValidationException;
 import com.example.banking_api.config.exceptions.UserNotFoundException;
 import com.example.banking_api.config.exceptions.UserValidationException;
@@ -29,6 +30,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.ResourceAccessException;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -47,6 +50,7 @@ class UserServiceTest {
     @Mock private ResetTokenActions resetTokenActions;
     @Mock private MeterRegistry meterRegistry;
     @Mock private TokenManager tokenManager;
+    @Mock private AuthServiceClient authServiceClient;
     private UserService userService;
     private final String USER_ERROR_COUNTER = "user-service.user.errors.counter";
     private final String EMAIL_ERROR_COUNTER = "user-service.emails.errors.counter";
@@ -65,7 +69,8 @@ class UserServiceTest {
                 resetTokenActions,
                 tokenManager,
                 RESET_PASSWORD_LINK,
-                userEmailRabbitService
+                userEmailRabbitService,
+                authServiceClient
         );
     }
 
@@ -379,9 +384,36 @@ class UserServiceTest {
         assertEquals("encoded", user.getPassword());
 
         verify(userRepository, times(1)).save(any(User.class));
+        verify(authServiceClient, times(1)).revokeUserTokens(user.getId());
         verify(tokenManager, times(1)).markTokenAsUsed(email, token, 15, TimeUnit.MINUTES);
     }
 
+    @Test
+    @DisplayName("Should fail the password update, for rollback, when tokens cannot be revoked")
+    void shouldFailPasswordUpdateWhenRevocationFails() throws NoSuchMethodException {
+        String email = "test@example.com";
+        User user = createTestUser(UUID.randomUUID());
+        ResetPasswordDTO resetDTO = new ResetPasswordDTO(email, "qwerty123");
+        String token = "qwerty123";
+
+        when(tokenManager.getActiveToken(email)).thenReturn(token);
+        when(tokenManager.isTokenUsed(email)).thenReturn(false);
+        when(resetTokenActions.isTokenValid(token, email)).thenReturn(true);
+        when(userRepository.findUserByEmail(email)).thenReturn(Optional.of(user));
+        when(passwordEncoder.encode(resetDTO.password())).thenReturn("encoded");
+        when(userRepository.save(user)).thenReturn(user);
+        doThrow(new ResourceAccessException("auth-service timed out")).when(authServiceClient).revokeUserTokens(user.getId());
+
+        // A RuntimeException out of a @Transactional method rolls the saved password back
+        assertThrows(RuntimeException.class, () -> userService.updatePassword(resetDTO, token));
+        assertTrue(UserService.class
+                .getMethod("updatePassword", ResetPasswordDTO.class, String.class)
+                .isAnnotationPresent(Transactional.class));
+
+        // The reset link stays usable for another attempt
+        verify(tokenManager, never()).markTokenAsUsed(anyString(), anyString(), anyLong(), any());
+    }
+
     private User createTestUser(UUID id)
     {
         return User.builder()